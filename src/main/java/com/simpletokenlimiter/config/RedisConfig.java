@@ -1,22 +1,44 @@
 package com.simpletokenlimiter.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnection;
 import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
-import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.time.Duration;
+
 /**
  * Redis 설정
+ *
+ * 연결 팩토리는 spring.data.redis.* 설정을 따르도록 자동 구성된 것을 사용한다.
  */
 @Configuration
+@Slf4j
 public class RedisConfig {
     
+    /**
+     * 공유 연결 사전 생성
+     *
+     * Lettuce 공유 연결은 첫 사용 시 블로킹으로 만들어지므로, 웹 서버가 시작되기 전에
+     * 메인 스레드에서 미리 맺어 첫 요청이 이벤트 루프에서 블로킹되지 않게 한다.
+     * Redis에 연결할 수 없으면 경고만 남기고 첫 요청 시 다시 연결을 시도한다.
+     */
     @Bean
-    public ReactiveRedisConnectionFactory reactiveRedisConnectionFactory() {
-        return new LettuceConnectionFactory();
+    public SmartInitializingSingleton redisConnectionWarmup(ReactiveRedisConnectionFactory connectionFactory) {
+        return () -> {
+            try {
+                ReactiveRedisConnection connection = connectionFactory.getReactiveConnection();
+                connection.ping().block(Duration.ofSeconds(5));
+                connection.close();
+            } catch (RuntimeException e) {
+                log.warn("Failed to establish Redis connection at startup", e);
+            }
+        };
     }
     
     @Bean
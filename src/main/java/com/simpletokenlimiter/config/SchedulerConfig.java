@@ -0,0 +1,27 @@
+package com.simpletokenlimiter.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 스케줄러 설정
+ */
+@Configuration
+public class SchedulerConfig {
+    
+    /**
+     * 대용량 요청/응답 JSON 파싱 전용 스케줄러 (스레드 수와 대기열 모두 제한)
+     *
+     * 대기열이 가득 차면 요청 본문은 503 + Retry-After로 거부하고,
+     * 이미 생성된 응답 본문은 호출 스레드에서 직접 파싱한다.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler parsingScheduler(TokenLimitConfig config) {
+        return Schedulers.newBoundedElastic(
+            config.getParsingThreads(),
+            config.getParsingQueueCapacity(),
+            "token-parsing");
+    }
+}
\ No newline at end of file
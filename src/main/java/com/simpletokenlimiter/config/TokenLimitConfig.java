@@ -4,6 +4,9 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * 토큰 제한 설정
  */
@@ -17,7 +20,54 @@ public class TokenLimitConfig {
     private int maxTokensPerDay = 100000;
     private int maxConcurrentRequests = 5;
     
+    // 프롬프트/생성 토큰 별도 한도 (compute unit 기준, 0이면 미적용)
+    private int maxPromptTokensPerMinute = 0;
+    private int maxPromptTokensPerHour = 0;
+    private int maxPromptTokensPerDay = 0;
+    private int maxCompletionTokensPerMinute = 0;
+    private int maxCompletionTokensPerHour = 0;
+    private int maxCompletionTokensPerDay = 0;
+    
     // Llama 3.2 1B 모델 설정
     private String modelName = "llama3.2-1b";
     private String vllmUrl = "http://localhost:8000";
+    
+    // 모델별 비용 가중치 (compute unit = 토큰 수 × 가중치)
+    private Map<String, ModelCost> models = new HashMap<>();
+    
+    // 요청 본문 최대 크기 (초과 시 413)
+    private int maxRequestBodyBytes = 4 * 1024 * 1024;
+    
+    // JSON 파싱 오프로딩 설정 (임계값 이상 본문은 이벤트 루프 밖에서 파싱)
+    private boolean parsingOffloadEnabled = true;
+    private int parsingOffloadThresholdBytes = 64 * 1024;
+    private int parsingThreads = Runtime.getRuntime().availableProcessors();
+    private int parsingQueueCapacity = 1000;
+    
+    /**
+     * 모델 비용 가중치 조회 (미등록 모델은 기본 모델 가중치, 그마저 없으면 1.0)
+     */
+    public ModelCost costFor(String model) {
+        ModelCost cost = model != null ? models.get(model) : null;
+        if (cost == null) {
+            cost = models.getOrDefault(modelName, ModelCost.DEFAULT);
+        }
+        return cost;
+    }
+    
+    @Data
+    public static class ModelCost {
+        static final ModelCost DEFAULT = new ModelCost();
+        
+        private double promptWeight = 1.0;
+        private double completionWeight = 1.0;
+        
+        public int promptUnits(int tokens) {
+            return (int) Math.ceil(tokens * promptWeight);
+        }
+        
+        public int completionUnits(int tokens) {
+            return (int) Math.ceil(tokens * completionWeight);
+        }
+    }
 }
\ No newline at end of file
@@ -1,14 +1,26 @@
 package com.simpletokenlimiter.controller;
 
+import com.simpletokenlimiter.config.TokenLimitConfig;
+import com.simpletokenlimiter.exception.ModelServiceException;
+import com.simpletokenlimiter.exception.RequestTooLargeException;
+import com.simpletokenlimiter.exception.ServiceOverloadedException;
+import com.simpletokenlimiter.exception.TokenLimitExceededException;
 import com.simpletokenlimiter.service.LlamaProxyService;
 import com.simpletokenlimiter.service.TokenLimitService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -21,31 +33,69 @@ public class LlamaController {
     
     private final LlamaProxyService llamaProxyService;
     private final TokenLimitService tokenLimitService;
+    private final TokenLimitConfig config;
+    
+    private static final byte[] INTERNAL_ERROR_BODY =
+        "{\"error\": \"Internal server error\"}".getBytes(StandardCharsets.UTF_8);
     
     public LlamaController(LlamaProxyService llamaProxyService, 
-                         TokenLimitService tokenLimitService) {
+                         TokenLimitService tokenLimitService,
+                         TokenLimitConfig config) {
         this.llamaProxyService = llamaProxyService;
         this.tokenLimitService = tokenLimitService;
+        this.config = config;
     }
     
     /**
      * 채팅 완성 API
+     *
+     * 본문은 문자열로 디코딩하지 않고 DataBuffer로 모아 그대로 프록시에 넘기며,
+     * 업스트림 응답도 바이트 그대로 돌려준다.
+     * Content-Length가 최대 크기를 넘으면 본문을 읽기 전에 거부한다.
+     * 응답에는 윈도우별 X-RateLimit-Limit/Remaining/Reset 헤더가 포함된다.
      */
     @PostMapping(value = "/chat/completions", 
                 consumes = MediaType.APPLICATION_JSON_VALUE,
                 produces = MediaType.APPLICATION_JSON_VALUE)
-    public Mono<ResponseEntity<String>> chatCompletions(
-            @RequestBody String requestBody,
+    public Mono<ResponseEntity<byte[]>> chatCompletions(
+            @RequestBody Flux<DataBuffer> requestBody,
+            @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength,
             @RequestHeader(value = "X-User-ID", defaultValue = "anonymous") String userId) {
         
-        log.info("Chat completion request from user: {}", userId);
+        log.debug("Chat completion request from user: {}", userId);
         
-        return llamaProxyService.proxyToLlama(requestBody, userId)
-            .map(response -> ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(response))
-            .onErrorReturn(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body("{\"error\": \"Internal server error\"}"));
+        int maxBodyBytes = config.getMaxRequestBodyBytes();
+        if (contentLength != null && contentLength > maxBodyBytes) {
+            return Mono.error(new RequestTooLargeException(maxBodyBytes));
+        }
+        
+        return DataBufferUtils.join(requestBody, maxBodyBytes)
+            .onErrorMap(DataBufferLimitException.class, ex -> new RequestTooLargeException(maxBodyBytes))
+            .flatMap(buffer -> llamaProxyService.proxyToLlama(buffer, userId)
+                .map(response -> ResponseEntity.ok()
+                    .headers(response.getRateLimit().toHttpHeaders())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(response.getBody()))
+                // 한도 초과(429 + X-RateLimit-*)와 파싱 대기열 포화(503 + Retry-After)는 GlobalExceptionHandler에서 응답
+                .onErrorResume(ex -> !(ex instanceof TokenLimitExceededException
+                        || ex instanceof ServiceOverloadedException),
+                    ex -> Mono.just(internalError(ex)))
+                .doFinally(signal -> DataBufferUtils.release(buffer)));
+    }
+    
+    /**
+     * 프록시 오류 응답
+     *
+     * 한도 승인 이후의 오류(ModelServiceException)는 승인 시점의 X-RateLimit-* 헤더를 함께 돌려준다.
+     * 승인 전 오류(토큰 추정 실패 등)에는 한도 상태가 없으므로 헤더가 없다.
+     */
+    private ResponseEntity<byte[]> internalError(Throwable ex) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR);
+        if (ex instanceof ModelServiceException modelException && modelException.getRateLimitStatus() != null) {
+            response.headers(modelException.getRateLimitStatus().toHttpHeaders());
+        }
+        return response.contentType(MediaType.APPLICATION_JSON)
+            .body(INTERNAL_ERROR_BODY);
     }
     
     /**
@@ -75,14 +125,20 @@ public class LlamaController {
     }
     
     /**
-     * 사용자별 토큰 사용량 조회
+     * 사용자별 토큰 사용량 조회 (한도 스크립트 한 번, X-RateLimit-* 헤더 포함)
      */
     @GetMapping("/usage/{userId}")
-    public Mono<ResponseEntity<Map<String, Integer>>> getTokenUsage(
+    public Mono<ResponseEntity<Map<String, Long>>> getTokenUsage(
             @PathVariable String userId) {
         
-        return tokenLimitService.getCurrentTokenUsage(userId)
-            .map(usage -> ResponseEntity.ok(usage))
+        return tokenLimitService.getQuotaStatus(userId)
+            .map(status -> {
+                Map<String, Long> usage = new LinkedHashMap<>();
+                status.getWindows().forEach(window -> usage.put(window.getName(), window.getTotalUsed()));
+                return ResponseEntity.ok()
+                    .headers(status.toHttpHeaders())
+                    .body(usage);
+            })
             .onErrorReturn(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .build());
     }
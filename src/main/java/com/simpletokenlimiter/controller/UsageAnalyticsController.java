@@ -0,0 +1,65 @@
+package com.simpletokenlimiter.controller;
+
+import com.simpletokenlimiter.model.RollupGranularity;
+import com.simpletokenlimiter.model.UsageHistory;
+import com.simpletokenlimiter.model.UserUsage;
+import com.simpletokenlimiter.service.UsageRollupService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 사용량 분석 API 컨트롤러 (롤업 기반)
+ */
+@RestController
+@RequestMapping("/api/v1/analytics")
+public class UsageAnalyticsController {
+
+    private final UsageRollupService usageRollupService;
+
+    public UsageAnalyticsController(UsageRollupService usageRollupService) {
+        this.usageRollupService = usageRollupService;
+    }
+
+    /**
+     * 기간별 사용자 토큰 사용량 조회 (기본: 최근 24시간)
+     */
+    @GetMapping("/usage/{userId}")
+    public Mono<ResponseEntity<UsageHistory>> getUsageHistory(
+            @PathVariable String userId,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(required = false) String granularity) {
+
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(Duration.ofDays(1));
+        RollupGranularity resolved = granularity != null
+            ? RollupGranularity.fromName(granularity) : null;
+
+        return usageRollupService.getUsageHistory(userId, start, end, resolved)
+            .map(ResponseEntity::ok);
+    }
+
+    /**
+     * 기간 내 상위 사용자 조회 (기본: 최근 24시간)
+     */
+    @GetMapping("/top-users")
+    public Mono<ResponseEntity<List<UserUsage>>> getTopUsers(
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String granularity) {
+
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(Duration.ofDays(1));
+        RollupGranularity resolved = granularity != null
+            ? RollupGranularity.fromName(granularity) : null;
+
+        return usageRollupService.getTopUsers(start, end, limit, resolved)
+            .map(ResponseEntity::ok);
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.server.ServerWebInputException;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
@@ -35,9 +36,13 @@ public class GlobalExceptionHandler {
             "timestamp", LocalDateTime.now()
         );
         
-        return Mono.just(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
-                .header("Retry-After", String.valueOf(ex.getRetryAfter()))
-                .body(errorResponse));
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", String.valueOf(ex.getRetryAfter()));
+        if (ex.getRateLimitStatus() != null) {
+            response.headers(ex.getRateLimitStatus().toHttpHeaders());
+        }
+        
+        return Mono.just(response.body(errorResponse));
     }
     
     /**
@@ -59,6 +64,85 @@ public class GlobalExceptionHandler {
                 .body(errorResponse));
     }
     
+    /**
+     * 일시적 과부하 처리 (파싱 대기열 포화)
+     */
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public Mono<ResponseEntity<Map<String, Object>>> handleServiceOverloaded(
+            ServiceOverloadedException ex) {
+        
+        log.warn("Service overloaded: {}", ex.getMessage());
+        
+        Map<String, Object> errorResponse = Map.of(
+            "error", "service_overloaded",
+            "message", ex.getMessage(),
+            "retry_after", ex.getRetryAfter(),
+            "timestamp", LocalDateTime.now()
+        );
+        
+        return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", String.valueOf(ex.getRetryAfter()))
+                .body(errorResponse));
+    }
+    
+    /**
+     * 요청 본문 크기 초과 처리
+     */
+    @ExceptionHandler(RequestTooLargeException.class)
+    public Mono<ResponseEntity<Map<String, Object>>> handleRequestTooLarge(
+            RequestTooLargeException ex) {
+        
+        log.debug("Request rejected: {}", ex.getMessage());
+        
+        Map<String, Object> errorResponse = Map.of(
+            "error", "request_too_large",
+            "message", ex.getMessage(),
+            "max_bytes", ex.getMaxBytes(),
+            "timestamp", LocalDateTime.now()
+        );
+        
+        return Mono.just(ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body(errorResponse));
+    }
+    
+    /**
+     * 잘못된 사용량 조회 조건 처리
+     */
+    @ExceptionHandler(InvalidUsageQueryException.class)
+    public Mono<ResponseEntity<Map<String, Object>>> handleInvalidUsageQuery(
+            InvalidUsageQueryException ex) {
+        
+        log.debug("Invalid request: {}", ex.getMessage());
+        
+        Map<String, Object> errorResponse = Map.of(
+            "error", "invalid_request",
+            "message", ex.getMessage(),
+            "timestamp", LocalDateTime.now()
+        );
+        
+        return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(errorResponse));
+    }
+    
+    /**
+     * 요청 파라미터 변환 실패 처리 (잘못된 시각/숫자 형식 등)
+     */
+    @ExceptionHandler(ServerWebInputException.class)
+    public Mono<ResponseEntity<Map<String, Object>>> handleServerWebInput(
+            ServerWebInputException ex) {
+        
+        log.debug("Invalid request input: {}", ex.getMessage());
+        
+        Map<String, Object> errorResponse = Map.of(
+            "error", "invalid_request",
+            "message", ex.getReason() != null ? ex.getReason() : "Invalid request input",
+            "timestamp", LocalDateTime.now()
+        );
+        
+        return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(errorResponse));
+    }
+    
     /**
      * 일반적인 예외 처리
      */
@@ -0,0 +1,11 @@
+package com.simpletokenlimiter.exception;
+
+/**
+ * 잘못된 사용량 조회 조건 예외 (기간, 집계 단위, 조회 개수)
+ */
+public class InvalidUsageQueryException extends RuntimeException {
+    
+    public InvalidUsageQueryException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
@@ -1,14 +1,30 @@
 package com.simpletokenlimiter.exception;
 
+import com.simpletokenlimiter.model.RateLimitStatus;
+
 /**
  * 모델 서비스 사용 불가 예외
  */
 public class ModelServiceException extends RuntimeException {
+    private final RateLimitStatus rateLimitStatus;
+    
     public ModelServiceException(String message) {
-        super(message);
+        this(message, null, null);
     }
     
     public ModelServiceException(String message, Throwable cause) {
+        this(message, cause, null);
+    }
+    
+    /**
+     * 한도 승인 이후 발생한 오류 (승인 시점의 한도 상태를 응답 헤더에 쓸 수 있도록 함께 보관)
+     */
+    public ModelServiceException(String message, Throwable cause, RateLimitStatus rateLimitStatus) {
         super(message, cause);
+        this.rateLimitStatus = rateLimitStatus;
+    }
+    
+    public RateLimitStatus getRateLimitStatus() {
+        return rateLimitStatus;
     }
 }
\ No newline at end of file
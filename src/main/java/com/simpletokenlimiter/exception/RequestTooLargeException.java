@@ -0,0 +1,17 @@
+package com.simpletokenlimiter.exception;
+
+/**
+ * 요청 본문 크기 초과 예외
+ */
+public class RequestTooLargeException extends RuntimeException {
+    private final int maxBytes;
+    
+    public RequestTooLargeException(int maxBytes) {
+        super("Request body exceeds " + maxBytes + " bytes");
+        this.maxBytes = maxBytes;
+    }
+    
+    public int getMaxBytes() {
+        return maxBytes;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.simpletokenlimiter.exception;
+
+/**
+ * 처리 용량 초과 예외 (파싱 대기열 포화 등 일시적 과부하)
+ */
+public class ServiceOverloadedException extends RuntimeException {
+    private final int retryAfter;
+    
+    public ServiceOverloadedException(String message, int retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+    
+    public int getRetryAfter() {
+        return retryAfter;
+    }
+}
\ No newline at end of file
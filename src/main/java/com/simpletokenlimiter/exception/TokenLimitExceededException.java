@@ -1,16 +1,25 @@
 package com.simpletokenlimiter.exception;
 
+import com.simpletokenlimiter.model.RateLimitStatus;
+
 /**
  * 토큰 제한 초과 예외
  */
 public class TokenLimitExceededException extends RuntimeException {
     private final int retryAfter;
     private final String limitType;
+    private final RateLimitStatus rateLimitStatus;
     
     public TokenLimitExceededException(String message, int retryAfter, String limitType) {
+        this(message, retryAfter, limitType, null);
+    }
+    
+    public TokenLimitExceededException(String message, int retryAfter, String limitType,
+                                       RateLimitStatus rateLimitStatus) {
         super(message);
         this.retryAfter = retryAfter;
         this.limitType = limitType;
+        this.rateLimitStatus = rateLimitStatus;
     }
     
     public int getRetryAfter() {
@@ -20,4 +29,8 @@ public class TokenLimitExceededException extends RuntimeException {
     public String getLimitType() {
         return limitType;
     }
+    
+    public RateLimitStatus getRateLimitStatus() {
+        return rateLimitStatus;
+    }
 }
\ No newline at end of file
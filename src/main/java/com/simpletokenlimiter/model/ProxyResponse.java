@@ -0,0 +1,16 @@
+package com.simpletokenlimiter.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * vLLM 응답 본문과 승인 시점의 한도 상태
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProxyResponse {
+    private byte[] body; // 업스트림 응답 바이트 그대로
+    private RateLimitStatus rateLimit;
+}
\ No newline at end of file
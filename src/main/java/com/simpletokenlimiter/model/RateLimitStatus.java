@@ -0,0 +1,78 @@
+package com.simpletokenlimiter.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.http.HttpHeaders;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 윈도우별 토큰 한도 상태 (승인 스크립트 결과 기반, compute unit 기준)
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RateLimitStatus {
+    private List<Window> windows;
+    private long concurrentLimit; // 0이면 미적용
+    private long concurrentRemaining;
+    
+    /**
+     * X-RateLimit-* 헤더 생성
+     *
+     * 윈도우별로 가장 빠듯한 한도(total/prompt/completion)를 헤더(예: X-RateLimit-Remaining-Minute)로,
+     * 그 종류를 X-RateLimit-Budget-*로 내보내고, 남은 양이 가장 적은 윈도우는 접미사 없는 헤더로 내보낸다.
+     * 한도가 0(미적용)인 항목은 헤더에서 제외한다.
+     */
+    public HttpHeaders toHttpHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        for (Window window : windows) {
+            if (window.getLimitType() == null) {
+                continue;
+            }
+            String suffix = "-" + Character.toUpperCase(window.getName().charAt(0)) + window.getName().substring(1);
+            headers.set("X-RateLimit-Limit" + suffix, String.valueOf(window.getLimit()));
+            headers.set("X-RateLimit-Remaining" + suffix, String.valueOf(window.getRemaining()));
+            headers.set("X-RateLimit-Reset" + suffix, String.valueOf(window.getResetSeconds()));
+            headers.set("X-RateLimit-Budget" + suffix, window.getLimitType());
+        }
+        
+        windows.stream()
+            .filter(window -> window.getLimitType() != null)
+            .min(Comparator.comparingLong(Window::getRemaining))
+            .ifPresent(window -> {
+                headers.set("X-RateLimit-Limit", String.valueOf(window.getLimit()));
+                headers.set("X-RateLimit-Remaining", String.valueOf(window.getRemaining()));
+                headers.set("X-RateLimit-Reset", String.valueOf(window.getResetSeconds()));
+                headers.set("X-RateLimit-Budget", window.getLimitType());
+            });
+        
+        if (concurrentLimit > 0) {
+            headers.set("X-RateLimit-Limit-Concurrent", String.valueOf(concurrentLimit));
+            headers.set("X-RateLimit-Remaining-Concurrent", String.valueOf(concurrentRemaining));
+        }
+        return headers;
+    }
+    
+    /**
+     * 윈도우 상태
+     *
+     * limit/remaining은 적용 중인 한도 중 남은 양이 가장 적은 종류(limitType: rate, prompt, completion) 기준이며,
+     * 적용 중인 한도가 없으면 limitType은 null이다.
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Window {
+        private String name;
+        private String limitType;
+        private long limit;
+        private long remaining;
+        private long resetSeconds;
+        private long totalUsed;
+        private long promptUsed;
+        private long completionUsed;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.simpletokenlimiter.model;
+
+import com.simpletokenlimiter.exception.InvalidUsageQueryException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 사용량 롤업 집계 단위
+ *
+ * 버킷은 UTC 기준으로 정렬되며, 단위별로 보존 기간이 다르다.
+ * 분 단위 버킷은 사용자 상위 랭킹을 유지하지 않는다.
+ */
+public enum RollupGranularity {
+    MINUTE("minute", ChronoUnit.MINUTES, "yyyyMMddHHmm", Duration.ofDays(2), false),
+    HOUR("hour", ChronoUnit.HOURS, "yyyyMMddHH", Duration.ofDays(90), true),
+    DAY("day", ChronoUnit.DAYS, "yyyyMMdd", Duration.ofDays(730), true),
+    MONTH("month", ChronoUnit.MONTHS, "yyyyMM", Duration.ofDays(3650), true);
+
+    private final String name;
+    private final ChronoUnit unit;
+    private final DateTimeFormatter formatter;
+    private final Duration retention;
+    private final boolean topUsersTracked;
+
+    RollupGranularity(String name, ChronoUnit unit, String pattern,
+                      Duration retention, boolean topUsersTracked) {
+        this.name = name;
+        this.unit = unit;
+        this.formatter = DateTimeFormatter.ofPattern(pattern).withZone(ZoneOffset.UTC);
+        this.retention = retention;
+        this.topUsersTracked = topUsersTracked;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Duration getRetention() {
+        return retention;
+    }
+
+    public boolean isTopUsersTracked() {
+        return topUsersTracked;
+    }
+
+    /**
+     * 주어진 시각이 속한 버킷의 시작 시각
+     */
+    public ZonedDateTime bucketStart(Instant instant) {
+        ZonedDateTime time = instant.atZone(ZoneOffset.UTC);
+        if (this == MONTH) {
+            return time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+        }
+        return time.truncatedTo(unit);
+    }
+
+    public ZonedDateTime nextBucket(ZonedDateTime bucketStart) {
+        return bucketStart.plus(1, unit);
+    }
+
+    /**
+     * Redis 키에 사용되는 버킷 식별자 (예: 2024010112)
+     */
+    public String bucketId(ZonedDateTime bucketStart) {
+        return formatter.format(bucketStart);
+    }
+
+    /**
+     * [from, to] 구간을 덮는 버킷 수
+     */
+    public long bucketCount(Instant from, Instant to) {
+        return unit.between(bucketStart(from), bucketStart(to)) + 1;
+    }
+
+    public static RollupGranularity fromName(String name) {
+        for (RollupGranularity granularity : values()) {
+            if (granularity.name.equalsIgnoreCase(name)) {
+                return granularity;
+            }
+        }
+        throw new InvalidUsageQueryException("Unknown granularity: " + name);
+    }
+}
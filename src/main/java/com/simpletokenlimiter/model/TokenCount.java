@@ -0,0 +1,21 @@
+package com.simpletokenlimiter.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 모델별 프롬프트/생성 토큰 수 (요청 추정치 또는 응답 실사용량)
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TokenCount {
+    private String model;
+    private int promptTokens;
+    private int completionTokens;
+    
+    public int getTotalTokens() {
+        return promptTokens + completionTokens;
+    }
+}
\ No newline at end of file
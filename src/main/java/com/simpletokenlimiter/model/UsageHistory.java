@@ -0,0 +1,31 @@
+package com.simpletokenlimiter.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 기간별 사용자 토큰 사용량 (롤업 버킷 기반)
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UsageHistory {
+    private String userId;
+    private String granularity;
+    private Instant from;
+    private Instant to;
+    private long totalTokens;
+    private List<Bucket> buckets;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Bucket {
+        private Instant start;
+        private long tokens;
+    }
+}
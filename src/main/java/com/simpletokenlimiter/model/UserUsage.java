@@ -0,0 +1,16 @@
+package com.simpletokenlimiter.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 사용자별 누적 토큰 사용량 (상위 사용자 조회용)
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserUsage {
+    private String userId;
+    private long tokens;
+}
@@ -2,19 +2,34 @@ package com.simpletokenlimiter.service;
 
 import com.simpletokenlimiter.config.TokenLimitConfig;
 import com.simpletokenlimiter.exception.ModelServiceException;
+import com.simpletokenlimiter.exception.ServiceOverloadedException;
+import com.simpletokenlimiter.model.ProxyResponse;
+import com.simpletokenlimiter.model.RateLimitStatus;
+import com.simpletokenlimiter.model.TokenCount;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Llama 3.2 1B 모델 프록시 서비스
@@ -27,33 +42,76 @@ public class LlamaProxyService {
     private final TokenLimitService tokenLimitService;
     private final TokenLimitConfig config;
     private final ObjectMapper objectMapper;
+    private final Scheduler parsingScheduler;
+    
+    private static final int DEFAULT_COMPLETION_TOKENS = 100;
+    private static final int PARSING_RETRY_AFTER_SECONDS = 1;
     
     public LlamaProxyService(WebClient webClient, 
                            TokenLimitService tokenLimitService,
-                           TokenLimitConfig config) {
+                           TokenLimitConfig config,
+                           Scheduler parsingScheduler) {
         this.webClient = webClient;
         this.tokenLimitService = tokenLimitService;
         this.config = config;
         this.objectMapper = new ObjectMapper();
+        this.parsingScheduler = parsingScheduler;
     }
     
     /**
      * vLLM으로 요청 프록시
+     *
+     * 요청 본문은 호출자가 소유한 DataBuffer 그대로 토큰 추정과 업스트림 전송에 사용되며,
+     * 문자열로 디코딩하거나 재직렬화하지 않는다. 버퍼 해제는 호출자 책임이다.
+     * 응답에는 승인 시점의 한도 상태가 함께 담기며, 승인 이후의 오류는
+     * 같은 상태를 담은 ModelServiceException으로 전달된다.
      */
-    public Mono<String> proxyToLlama(String requestBody, String userId) {
-        String requestId = UUID.randomUUID().toString();
-        int estimatedTokens = estimateTokensFromRequest(requestBody);
+    public Mono<ProxyResponse> proxyToLlama(DataBuffer requestBody, String userId) {
+        // UUID.randomUUID()는 SecureRandom을 사용해 이벤트 루프에서 블로킹될 수 있음
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String requestId = new UUID(random.nextLong(), random.nextLong()).toString();
         
-        return tokenLimitService.checkTokenLimit(userId, estimatedTokens)
-            .then(forwardToVllm(requestBody))
-            .flatMap(response -> {
-                int actualTokens = extractTokenUsageFromResponse(response);
-                return tokenLimitService.recordTokenUsage(userId, actualTokens, requestId)
-                    .thenReturn(response);
-            })
-            .onErrorMap(WebClientResponseException.class, ex -> 
-                new ModelServiceException("vLLM service error: " + ex.getMessage(), ex))
-            .timeout(Duration.ofMinutes(2));
+        return parse(requestBody.readableByteCount(), () -> estimateTokensFromRequest(requestBody))
+            // 승인 전이므로 대기열이 가득 차면 업스트림 호출 없이 재시도를 요청한다
+            .onErrorMap(RejectedExecutionException.class, ex -> new ServiceOverloadedException(
+                "Token parsing queue is full", PARSING_RETRY_AFTER_SECONDS))
+            .flatMap(estimated -> tokenLimitService.checkTokenLimit(userId, estimated)
+                .flatMap(rateLimit -> {
+                    // 승인으로 잡은 동시 요청 슬롯은 사용량 기록 스크립트가 반환하며,
+                    // 그 전에 실패하거나 취소되면 여기서 한 번만 반환한다
+                    AtomicBoolean slotHeld = new AtomicBoolean(true);
+                    return forwardToVllm(requestBody)
+                        .flatMap(response -> {
+                            Callable<TokenCount> extractor =
+                                () -> extractTokenUsageFromResponse(response, estimated.getModel());
+                            return parse(response.length, extractor)
+                                // 응답은 이미 생성되었으므로 대기열이 가득 차도 버리지 않고 현재 스레드에서 파싱
+                                .onErrorResume(RejectedExecutionException.class, ex -> Mono.fromCallable(extractor))
+                                .flatMap(actual -> tokenLimitService.recordTokenUsage(userId, actual, requestId)
+                                    .doOnSuccess(v -> slotHeld.set(false)))
+                                .thenReturn(new ProxyResponse(response, rateLimit));
+                        })
+                        .timeout(Duration.ofMinutes(2))
+                        .onErrorResume(ex -> releaseSlot(userId, slotHeld)
+                            .then(Mono.error(toModelServiceException(ex, rateLimit))))
+                        .doOnCancel(() -> releaseSlot(userId, slotHeld).subscribe());
+                }));
+    }
+    
+    private Mono<Void> releaseSlot(String userId, AtomicBoolean slotHeld) {
+        return Mono.defer(() -> slotHeld.compareAndSet(true, false)
+            ? tokenLimitService.releaseConcurrentRequest(userId)
+            : Mono.empty());
+    }
+    
+    /**
+     * 승인 이후 오류에 승인 시점의 한도 상태를 담아 호출자가 오류 응답에도 헤더를 쓸 수 있게 한다
+     */
+    private ModelServiceException toModelServiceException(Throwable ex, RateLimitStatus rateLimit) {
+        String message = ex instanceof WebClientResponseException
+            ? "vLLM service error: " + ex.getMessage()
+            : "Proxy request failed: " + ex.getMessage();
+        return new ModelServiceException(message, ex, rateLimit);
     }
     
     /**
@@ -80,54 +138,107 @@ public class LlamaProxyService {
             .onErrorReturn("{\"data\": []}");
     }
     
-    private Mono<String> forwardToVllm(String requestBody) {
+    /**
+     * 본문 크기가 임계값 이상이면 파싱을 전용 스케줄러로 넘겨 이벤트 루프를 점유하지 않도록 한다
+     *
+     * 스케줄러 대기열이 가득 차면 RejectedExecutionException으로 실패하며, 처리는 호출 위치에서 결정한다.
+     */
+    private <T> Mono<T> parse(int bodySize, Callable<T> parser) {
+        if (config.isParsingOffloadEnabled()
+                && bodySize >= config.getParsingOffloadThresholdBytes()) {
+            return Mono.fromCallable(parser).subscribeOn(parsingScheduler);
+        }
+        return Mono.fromCallable(parser);
+    }
+    
+    private Mono<byte[]> forwardToVllm(DataBuffer requestBody) {
+        // 전송 시점에 참조를 하나 더 잡아 넘기고, 쓰기가 끝나면 WebClient가 해제한다
         return webClient.post()
             .uri(config.getVllmUrl() + "/v1/chat/completions")
             .contentType(MediaType.APPLICATION_JSON)
-            .bodyValue(requestBody)
+            .body(BodyInserters.fromDataBuffers(
+                Mono.fromSupplier(() -> DataBufferUtils.retain(requestBody))))
             .retrieve()
-            .bodyToMono(String.class);
+            .bodyToMono(byte[].class);
     }
     
-    private int estimateTokensFromRequest(String requestBody) {
-        try {
-            JsonNode jsonNode = objectMapper.readTree(requestBody);
-            
-            if (jsonNode.has("max_tokens")) {
-                return jsonNode.get("max_tokens").asInt();
+    /**
+     * 요청 바이트를 스트리밍 파서로 읽어 프롬프트/생성 토큰 수 추정 (문자열/트리 생성 없음)
+     */
+    private TokenCount estimateTokensFromRequest(DataBuffer requestBody) {
+        int readPosition = requestBody.readPosition();
+        try (JsonParser parser = objectMapper.getFactory().createParser(requestBody.asInputStream())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return new TokenCount(null, 0, DEFAULT_COMPLETION_TOKENS);
             }
             
-            // 메시지 길이 기반 추정
-            if (jsonNode.has("messages")) {
-                int totalChars = 0;
-                JsonNode messages = jsonNode.get("messages");
-                for (JsonNode message : messages) {
-                    if (message.has("content")) {
-                        totalChars += message.get("content").asText().length();
-                    }
+            String model = null;
+            int maxTokens = -1;
+            int totalChars = 0;
+            
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                
+                if ("model".equals(field) && value == JsonToken.VALUE_STRING) {
+                    model = parser.getText();
+                } else if ("max_tokens".equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                    maxTokens = parser.getIntValue();
+                } else if ("messages".equals(field) && value == JsonToken.START_ARRAY) {
+                    totalChars += countMessageContentChars(parser);
+                } else {
+                    parser.skipChildren();
                 }
-                return Math.max(totalChars / 4, 50); // 대략 4글자당 1토큰
             }
             
-            return 100; // 기본값
+            // 프롬프트는 메시지 길이 기반 추정 (대략 4글자당 1토큰), 생성은 max_tokens 기준
+            // (null이나 정수가 아닌 max_tokens는 기본값으로 추정)
+            int completionTokens = maxTokens >= 0 ? maxTokens : DEFAULT_COMPLETION_TOKENS;
+            return new TokenCount(model, totalChars / 4, completionTokens);
         } catch (Exception e) {
             log.warn("Failed to estimate tokens from request", e);
-            return 100;
+            return new TokenCount(null, 0, DEFAULT_COMPLETION_TOKENS);
+        } finally {
+            // 업스트림 전송을 위해 읽기 위치 복원
+            requestBody.readPosition(readPosition);
+        }
+    }
+    
+    private int countMessageContentChars(JsonParser parser) throws IOException {
+        int totalChars = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("content".equals(field) && value == JsonToken.VALUE_STRING) {
+                    totalChars += parser.getTextLength();
+                } else {
+                    parser.skipChildren();
+                }
+            }
         }
+        return totalChars;
     }
     
-    private int extractTokenUsageFromResponse(String response) {
+    private TokenCount extractTokenUsageFromResponse(byte[] response, String model) {
         try {
-            JsonNode jsonNode = objectMapper.readTree(response);
+            JsonNode usage = objectMapper.readTree(response).path("usage");
             
-            if (jsonNode.has("usage") && jsonNode.get("usage").has("total_tokens")) {
-                return jsonNode.get("usage").get("total_tokens").asInt();
+            if (usage.has("prompt_tokens") || usage.has("completion_tokens")) {
+                return new TokenCount(model,
+                    usage.path("prompt_tokens").asInt(),
+                    usage.path("completion_tokens").asInt());
             }
             
-            return 0;
+            // 분리 정보가 없으면 전체를 생성 토큰으로 간주
+            return new TokenCount(model, 0, usage.path("total_tokens").asInt());
         } catch (Exception e) {
             log.warn("Failed to extract token usage from response", e);
-            return 0;
+            return new TokenCount(model, 0, 0);
         }
     }
 }
\ No newline at end of file
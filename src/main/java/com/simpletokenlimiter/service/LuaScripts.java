@@ -0,0 +1,30 @@
+package com.simpletokenlimiter.service;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lua 스크립트 로더
+ *
+ * 스크립트 본문을 클래스 로딩 시점에 미리 읽어 두어, 실행 시 클래스패스 리소스를
+ * 읽는 블로킹 I/O가 이벤트 루프에서 일어나지 않도록 한다.
+ */
+final class LuaScripts {
+    
+    private LuaScripts() {
+    }
+    
+    static <T> RedisScript<T> load(String path, Class<T> resultType) {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            return RedisScript.of(StreamUtils.copyToString(in, StandardCharsets.UTF_8), resultType);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load Lua script: " + path, e);
+        }
+    }
+}
\ No newline at end of file
@@ -2,16 +2,19 @@ package com.simpletokenlimiter.service;
 
 import com.simpletokenlimiter.config.TokenLimitConfig;
 import com.simpletokenlimiter.exception.TokenLimitExceededException;
+import com.simpletokenlimiter.model.RateLimitStatus;
+import com.simpletokenlimiter.model.TokenCount;
 import com.simpletokenlimiter.model.TokenUsage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 토큰 제한 서비스
@@ -22,124 +25,203 @@ public class TokenLimitService {
     
     private final ReactiveRedisTemplate<String, String> redisTemplate;
     private final TokenLimitConfig config;
+    private final UsageRollupService usageRollupService;
     
     private static final String TOKEN_KEY = "token:usage:%s:%s"; // userId:window
+    private static final String PROMPT_KEY = "token:usage:%s:%s:prompt"; // userId:window
+    private static final String COMPLETION_KEY = "token:usage:%s:%s:completion"; // userId:window
     private static final String CONCURRENT_KEY = "concurrent:%s"; // userId
     
+    private static final String[] WINDOWS = {"minute", "hour", "day"};
+    private static final String[] LIMIT_TYPES = {"rate", "prompt", "completion"};
+    private static final int[] WINDOW_SECONDS = {60, 3600, 86400};
+    private static final int CONCURRENT_TTL_SECONDS = 300;
+    
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ADMISSION_SCRIPT =
+        LuaScripts.load("scripts/token-admission.lua", List.class);
+    
+    private static final RedisScript<Long> RECORD_SCRIPT =
+        LuaScripts.load("scripts/token-record.lua", Long.class);
+    
+    private static final RedisScript<Long> RELEASE_SCRIPT =
+        LuaScripts.load("scripts/token-release.lua", Long.class);
+    
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> QUOTA_SCRIPT =
+        LuaScripts.load("scripts/token-quota.lua", List.class);
+    
     public TokenLimitService(ReactiveRedisTemplate<String, String> redisTemplate, 
-                           TokenLimitConfig config) {
+                           TokenLimitConfig config,
+                           UsageRollupService usageRollupService) {
         this.redisTemplate = redisTemplate;
         this.config = config;
+        this.usageRollupService = usageRollupService;
     }
     
     /**
      * 토큰 사용 전 제한 확인
+     *
+     * 요청 토큰을 모델 가중치로 compute unit으로 환산한 뒤, 동시 요청 수와
+     * 윈도우별 total/prompt/completion 한도를 Lua 스크립트 한 번으로 확인한다.
+     * 스크립트가 함께 돌려준 사용량/TTL로 한도 상태를 만들어 추가 조회 없이 헤더에 쓸 수 있게 한다.
      */
-    public Mono<Boolean> checkTokenLimit(String userId, int requestedTokens) {
-        return checkConcurrentRequests(userId)
-            .flatMap(allowed -> {
-                if (!allowed) {
+    public Mono<RateLimitStatus> checkTokenLimit(String userId, TokenCount requested) {
+        TokenLimitConfig.ModelCost cost = config.costFor(requested.getModel());
+        int promptUnits = cost.promptUnits(requested.getPromptTokens());
+        int completionUnits = cost.completionUnits(requested.getCompletionTokens());
+        
+        List<String> keys = limitKeys(userId);
+        
+        List<String> args = new ArrayList<>(List.of(
+            String.valueOf(config.getMaxConcurrentRequests()),
+            String.valueOf(CONCURRENT_TTL_SECONDS),
+            String.valueOf(promptUnits),
+            String.valueOf(completionUnits)));
+        for (int[] windowLimits : windowLimits()) {
+            for (int limit : windowLimits) {
+                args.add(String.valueOf(limit));
+            }
+        }
+        
+        return redisTemplate.execute(ADMISSION_SCRIPT, keys, args)
+            .next()
+            .flatMap(result -> {
+                long status = (Long) result.get(0);
+                if (status == 1) {
                     return Mono.error(new TokenLimitExceededException(
-                        "Concurrent request limit exceeded", 30, "concurrent"));
+                        "Concurrent request limit exceeded", 30, "concurrent",
+                        toRateLimitStatus(result, 3, 0, 0)));
                 }
-                return checkTokenUsageWindows(userId, requestedTokens);
-            })
-            .flatMap(allowed -> {
-                if (!allowed) {
+                if (status == 2) {
+                    int windowIndex = ((Long) result.get(1)).intValue() - 1;
+                    String limitType = LIMIT_TYPES[((Long) result.get(2)).intValue() - 1];
+                    RateLimitStatus rateLimit = toRateLimitStatus(result, 3, 0, 0);
+                    int retryAfter = (int) Math.max(1, rateLimit.getWindows().get(windowIndex).getResetSeconds());
                     return Mono.error(new TokenLimitExceededException(
-                        "Token usage limit exceeded", 60, "rate"));
+                        "Token usage limit exceeded (" + limitType + " per " + WINDOWS[windowIndex] + ")",
+                        retryAfter, limitType, rateLimit));
                 }
-                return incrementConcurrentRequests(userId);
+                return Mono.just(toRateLimitStatus(result, 3, promptUnits, completionUnits));
             });
     }
     
     /**
-     * 토큰 사용량 기록
+     * 토큰 사용량 기록 (윈도우 카운터는 compute unit, 롤업은 실제 토큰 수)
+     *
+     * 윈도우 카운터 증가와 동시 요청 슬롯 반환은 스크립트 한 번으로 원자적으로 처리한다.
      */
-    public Mono<Void> recordTokenUsage(String userId, int tokensUsed, String requestId) {
+    public Mono<Void> recordTokenUsage(String userId, TokenCount used, String requestId) {
+        int tokensUsed = used.getTotalTokens();
         TokenUsage usage = new TokenUsage(userId, tokensUsed, LocalDateTime.now(), requestId);
         
+        TokenLimitConfig.ModelCost cost = config.costFor(used.getModel());
+        int promptUnits = cost.promptUnits(used.getPromptTokens());
+        int completionUnits = cost.completionUnits(used.getCompletionTokens());
+        
+        List<String> keys = limitKeys(userId);
+        
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(promptUnits));
+        args.add(String.valueOf(completionUnits));
+        for (int seconds : WINDOW_SECONDS) {
+            args.add(String.valueOf(seconds));
+        }
+        
         return Mono.when(
-            updateTokenUsageWindow(userId, "minute", tokensUsed, 60),
-            updateTokenUsageWindow(userId, "hour", tokensUsed, 3600),
-            updateTokenUsageWindow(userId, "day", tokensUsed, 86400)
-        ).then(decrementConcurrentRequests(userId))
-        .doOnSuccess(v -> log.info("Recorded {} tokens for user: {}", tokensUsed, userId));
+            redisTemplate.execute(RECORD_SCRIPT, keys, args),
+            usageRollupService.recordUsage(userId, tokensUsed, Instant.now())
+        ).doOnSuccess(v -> log.debug("Recorded {} tokens ({} units) for user: {}",
+            tokensUsed, promptUnits + completionUnits, userId));
     }
     
     /**
-     * 현재 토큰 사용량 조회
+     * 사용량 기록 없이 동시 요청 슬롯만 반환 (승인 이후 실패/취소 시)
+     *
+     * 실패해도 슬롯은 TTL 만료로 회수되므로 오류는 로그만 남긴다.
      */
-    public Mono<Map<String, Integer>> getCurrentTokenUsage(String userId) {
-        return Mono.fromCallable(() -> {
-            Map<String, Integer> usage = new HashMap<>();
-            return usage;
-        }).flatMap(usage -> 
-            getTokenUsage(userId, "minute")
-                .defaultIfEmpty(0)
-                .doOnNext(minute -> usage.put("minute", minute))
-                .then(getTokenUsage(userId, "hour"))
-                .defaultIfEmpty(0)
-                .doOnNext(hour -> usage.put("hour", hour))
-                .then(getTokenUsage(userId, "day"))
-                .defaultIfEmpty(0)
-                .doOnNext(day -> usage.put("day", day))
-                .thenReturn(usage)
-        );
-    }
-    
-    private Mono<Boolean> checkConcurrentRequests(String userId) {
-        String key = String.format(CONCURRENT_KEY, userId);
-        return redisTemplate.opsForValue().get(key)
-            .map(Integer::parseInt)
-            .defaultIfEmpty(0)
-            .map(current -> current < config.getMaxConcurrentRequests());
-    }
-    
-    private Mono<Boolean> incrementConcurrentRequests(String userId) {
-        String key = String.format(CONCURRENT_KEY, userId);
-        return redisTemplate.opsForValue().increment(key)
-            .flatMap(count -> redisTemplate.expire(key, Duration.ofMinutes(5))
-                .thenReturn(true));
-    }
-    
-    private Mono<Void> decrementConcurrentRequests(String userId) {
-        String key = String.format(CONCURRENT_KEY, userId);
-        return redisTemplate.opsForValue().decrement(key)
-            .flatMap(count -> {
-                if (count <= 0) {
-                    return redisTemplate.delete(key).then();
-                }
+    public Mono<Void> releaseConcurrentRequest(String userId) {
+        return redisTemplate.execute(RELEASE_SCRIPT, List.of(String.format(CONCURRENT_KEY, userId)), List.of())
+            .then()
+            .onErrorResume(e -> {
+                log.warn("Failed to release concurrent request slot for user: {}", userId, e);
                 return Mono.empty();
             });
     }
     
-    private Mono<Boolean> checkTokenUsageWindows(String userId, int requestedTokens) {
-        return Mono.when(
-            checkTokenUsageWindow(userId, "minute", requestedTokens, config.getMaxTokensPerMinute()),
-            checkTokenUsageWindow(userId, "hour", requestedTokens, config.getMaxTokensPerHour()),
-            checkTokenUsageWindow(userId, "day", requestedTokens, config.getMaxTokensPerDay())
-        ).thenReturn(true).onErrorReturn(false);
+    /**
+     * 현재 한도 상태 조회 (읽기 전용 스크립트 한 번)
+     */
+    public Mono<RateLimitStatus> getQuotaStatus(String userId) {
+        return redisTemplate.execute(QUOTA_SCRIPT, limitKeys(userId), List.of())
+            .next()
+            .map(result -> toRateLimitStatus(result, 0, 0, 0));
     }
     
-    private Mono<Boolean> checkTokenUsageWindow(String userId, String window, 
-                                              int requestedTokens, int maxTokens) {
-        return getTokenUsage(userId, window)
-            .defaultIfEmpty(0)
-            .map(current -> (current + requestedTokens) <= maxTokens);
+    /**
+     * 스크립트 결과(동시 요청 수, 윈도우별 total/prompt/completion 사용량과 PTTL)를 한도 상태로 변환
+     *
+     * 윈도우마다 적용 중인 한도 중 남은 양이 가장 적은 것을 고르며,
+     * 승인된 요청은 추정 prompt/completion unit을 각 한도의 남은 양에서 미리 차감한다.
+     */
+    private RateLimitStatus toRateLimitStatus(List<?> result, int offset,
+                                              int promptUnits, int completionUnits) {
+        int[][] limits = windowLimits();
+        long[] reserved = {promptUnits + completionUnits, promptUnits, completionUnits};
+        
+        List<RateLimitStatus.Window> windows = new ArrayList<>(WINDOWS.length);
+        for (int i = 0; i < WINDOWS.length; i++) {
+            int base = offset + 1 + i * 4;
+            long[] used = {(Long) result.get(base), (Long) result.get(base + 1), (Long) result.get(base + 2)};
+            long ttlMillis = (Long) result.get(base + 3);
+            
+            String limitType = null;
+            long limit = 0;
+            long remaining = 0;
+            for (int k = 0; k < LIMIT_TYPES.length; k++) {
+                if (limits[i][k] <= 0) {
+                    continue;
+                }
+                long left = Math.max(0, limits[i][k] - used[k] - reserved[k]);
+                if (limitType == null || left < remaining) {
+                    limitType = LIMIT_TYPES[k];
+                    limit = limits[i][k];
+                    remaining = left;
+                }
+            }
+            // 키가 없거나 TTL이 없으면 다음 기록부터 윈도우 전체 길이가 적용됨
+            long resetSeconds = ttlMillis > 0 ? (ttlMillis + 999) / 1000 : WINDOW_SECONDS[i];
+            windows.add(new RateLimitStatus.Window(WINDOWS[i], limitType, limit, remaining, resetSeconds,
+                used[0], used[1], used[2]));
+        }
+        
+        long concurrent = (Long) result.get(offset);
+        long maxConcurrent = config.getMaxConcurrentRequests();
+        return new RateLimitStatus(windows, maxConcurrent, Math.max(0, maxConcurrent - concurrent));
     }
     
-    private Mono<Void> updateTokenUsageWindow(String userId, String window, 
-                                            int tokens, int ttlSeconds) {
-        String key = String.format(TOKEN_KEY, userId, window);
-        return redisTemplate.opsForValue().increment(key, tokens)
-            .flatMap(count -> redisTemplate.expire(key, Duration.ofSeconds(ttlSeconds)))
-            .then();
+    /**
+     * 윈도우(minute, hour, day)별 total, prompt, completion 한도 (0이면 미적용)
+     */
+    private int[][] windowLimits() {
+        return new int[][] {
+            {config.getMaxTokensPerMinute(), config.getMaxPromptTokensPerMinute(), config.getMaxCompletionTokensPerMinute()},
+            {config.getMaxTokensPerHour(), config.getMaxPromptTokensPerHour(), config.getMaxCompletionTokensPerHour()},
+            {config.getMaxTokensPerDay(), config.getMaxPromptTokensPerDay(), config.getMaxCompletionTokensPerDay()}
+        };
     }
     
-    private Mono<Integer> getTokenUsage(String userId, String window) {
-        String key = String.format(TOKEN_KEY, userId, window);
-        return redisTemplate.opsForValue().get(key)
-            .map(Integer::parseInt);
+    /**
+     * 동시 요청 키 + 윈도우별 total, prompt, completion 사용량 키 (스크립트 KEYS 순서)
+     */
+    private List<String> limitKeys(String userId) {
+        List<String> keys = new ArrayList<>();
+        keys.add(String.format(CONCURRENT_KEY, userId));
+        for (String window : WINDOWS) {
+            keys.add(String.format(TOKEN_KEY, userId, window));
+            keys.add(String.format(PROMPT_KEY, userId, window));
+            keys.add(String.format(COMPLETION_KEY, userId, window));
+        }
+        return keys;
     }
 }
\ No newline at end of file
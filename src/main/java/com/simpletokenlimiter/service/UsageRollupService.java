@@ -0,0 +1,254 @@
+package com.simpletokenlimiter.service;
+
+import com.simpletokenlimiter.exception.InvalidUsageQueryException;
+import com.simpletokenlimiter.model.RollupGranularity;
+import com.simpletokenlimiter.model.UsageHistory;
+import com.simpletokenlimiter.model.UserUsage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 사용량 롤업 서비스
+ *
+ * 토큰 사용 기록 시점에 분/시간/일/월 버킷 카운터를 함께 증가시켜
+ * 임의 기간 조회와 상위 사용자 조회를 원본 이벤트 스캔 없이 처리한다.
+ */
+@Service
+@Slf4j
+public class UsageRollupService {
+
+    private final ReactiveRedisTemplate<String, String> redisTemplate;
+
+    private static final String ROLLUP_KEY = "usage:rollup:%s:%s:%s"; // granularity:userId:bucket
+    private static final String TOP_KEY = "usage:top:%s:%s"; // granularity:bucket
+    private static final String TOP_UNION_KEY = "usage:top:union:%s"; // 임시 집계 키
+
+    private static final int MAX_BUCKETS = 1000;
+    private static final int MAX_TOP_USERS = 100;
+
+    private static final RedisScript<Long> ROLLUP_SCRIPT =
+        LuaScripts.load("scripts/usage-rollup.lua", Long.class);
+
+    public UsageRollupService(ReactiveRedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 모든 집계 단위의 버킷에 사용량 반영 (스크립트 한 번으로 카운터/랭킹/TTL 갱신)
+     *
+     * 분석용 데이터이므로 실패해도 요청 처리에는 영향을 주지 않는다.
+     */
+    public Mono<Void> recordUsage(String userId, int tokens, Instant timestamp) {
+        if (tokens <= 0) {
+            return Mono.empty();
+        }
+
+        List<String> counterKeys = new ArrayList<>();
+        List<String> rankingKeys = new ArrayList<>();
+        List<String> counterTtls = new ArrayList<>();
+        List<String> rankingTtls = new ArrayList<>();
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            ZonedDateTime bucket = granularity.bucketStart(timestamp);
+            String ttl = String.valueOf(granularity.getRetention().getSeconds());
+            counterKeys.add(String.format(ROLLUP_KEY, granularity.getName(), userId, granularity.bucketId(bucket)));
+            counterTtls.add(ttl);
+            if (granularity.isTopUsersTracked()) {
+                rankingKeys.add(topKey(granularity, bucket));
+                rankingTtls.add(ttl);
+            }
+        }
+
+        List<String> keys = new ArrayList<>(counterKeys);
+        keys.addAll(rankingKeys);
+        List<String> args = new ArrayList<>(List.of(
+            String.valueOf(tokens), userId, String.valueOf(counterKeys.size())));
+        args.addAll(counterTtls);
+        args.addAll(rankingTtls);
+
+        return redisTemplate.execute(ROLLUP_SCRIPT, keys, args)
+            .then()
+            .onErrorResume(e -> {
+                log.warn("Failed to update usage rollups for user: {}", userId, e);
+                return Mono.empty();
+            });
+    }
+
+    /**
+     * 기간별 사용자 사용량 조회
+     *
+     * 구간은 버킷 경계로 정렬되므로 양 끝 버킷 전체가 포함된다.
+     * granularity가 null이면 보존 기간과 버킷 수에 맞춰 가장 세밀한 단위를 선택한다.
+     */
+    public Mono<UsageHistory> getUsageHistory(String userId, Instant from, Instant to,
+                                              RollupGranularity granularity) {
+        return Mono.defer(() -> {
+            validateRange(from, to);
+            RollupGranularity resolved = granularity != null
+                ? granularity : selectGranularity(from, to);
+            List<ZonedDateTime> buckets = bucketsBetween(resolved, from, to);
+
+            List<String> keys = new ArrayList<>(buckets.size());
+            for (ZonedDateTime bucket : buckets) {
+                keys.add(String.format(ROLLUP_KEY, resolved.getName(), userId, resolved.bucketId(bucket)));
+            }
+
+            return redisTemplate.opsForValue().multiGet(keys)
+                .map(values -> {
+                    List<UsageHistory.Bucket> result = new ArrayList<>(buckets.size());
+                    long total = 0;
+                    for (int i = 0; i < buckets.size(); i++) {
+                        String value = values.get(i);
+                        long tokens = value != null ? Long.parseLong(value) : 0;
+                        total += tokens;
+                        result.add(new UsageHistory.Bucket(buckets.get(i).toInstant(), tokens));
+                    }
+                    return new UsageHistory(userId, resolved.getName(), from, to, total, result);
+                });
+        });
+    }
+
+    /**
+     * 기간 내 상위 사용자 조회
+     *
+     * granularity가 null이면 구간을 가장 큰 정렬 버킷(월/일)으로 덮고 양 끝만 시간 버킷을 사용해
+     * 합산 대상 키를 수십 개 이내로 유지한다. 양 끝 버킷은 경계로 정렬되어 전체가 포함된다.
+     */
+    public Mono<List<UserUsage>> getTopUsers(Instant from, Instant to, int limit,
+                                             RollupGranularity granularity) {
+        return Mono.defer(() -> {
+            validateRange(from, to);
+            if (limit < 1 || limit > MAX_TOP_USERS) {
+                throw new InvalidUsageQueryException("limit must be between 1 and " + MAX_TOP_USERS);
+            }
+
+            List<String> keys = new ArrayList<>();
+            if (granularity != null) {
+                if (!granularity.isTopUsersTracked()) {
+                    throw new InvalidUsageQueryException(
+                        "Top users are not tracked at " + granularity.getName() + " granularity");
+                }
+                for (ZonedDateTime bucket : bucketsBetween(granularity, from, to)) {
+                    keys.add(topKey(granularity, bucket));
+                }
+            } else {
+                keys.addAll(coveringTopKeys(from, to));
+            }
+
+            Range<Long> range = Range.closed(0L, (long) limit - 1);
+            if (keys.size() == 1) {
+                return readTopUsers(keys.get(0), range);
+            }
+
+            String unionKey = String.format(TOP_UNION_KEY, Long.toHexString(ThreadLocalRandom.current().nextLong()));
+            return redisTemplate.opsForZSet()
+                .unionAndStore(keys.get(0), keys.subList(1, keys.size()), unionKey)
+                .then(redisTemplate.expire(unionKey, Duration.ofMinutes(1)))
+                .then(readTopUsers(unionKey, range))
+                .flatMap(users -> redisTemplate.delete(unionKey).thenReturn(users));
+        });
+    }
+
+    private Mono<List<UserUsage>> readTopUsers(String key, Range<Long> range) {
+        return redisTemplate.opsForZSet().reverseRangeWithScores(key, range)
+            .map(tuple -> new UserUsage(tuple.getValue(),
+                tuple.getScore() != null ? tuple.getScore().longValue() : 0))
+            .collectList();
+    }
+
+    /**
+     * [from, to]를 덮는 상위 사용자 키 목록
+     *
+     * 양 끝 단위(보존 기간 내 가장 세밀한 추적 단위)로 구간을 정렬한 뒤,
+     * 각 위치에서 구간 안에 완전히 들어가는 가장 큰 버킷부터 채운다.
+     */
+    private List<String> coveringTopKeys(Instant from, Instant to) {
+        RollupGranularity edge = edgeGranularity(from);
+        ZonedDateTime cursor = edge.bucketStart(from);
+        ZonedDateTime end = edge.nextBucket(edge.bucketStart(to));
+
+        List<String> keys = new ArrayList<>();
+        while (cursor.isBefore(end)) {
+            RollupGranularity granularity = largestAlignedBucket(cursor, end, edge);
+            keys.add(topKey(granularity, cursor));
+            cursor = granularity.nextBucket(cursor);
+            if (keys.size() > MAX_BUCKETS) {
+                throw new InvalidUsageQueryException("Range too large (max " + MAX_BUCKETS + " buckets)");
+            }
+        }
+        return keys;
+    }
+
+    private RollupGranularity largestAlignedBucket(ZonedDateTime cursor, ZonedDateTime end,
+                                                   RollupGranularity edge) {
+        RollupGranularity[] granularities = RollupGranularity.values();
+        for (int i = granularities.length - 1; i > edge.ordinal(); i--) {
+            RollupGranularity granularity = granularities[i];
+            boolean aligned = granularity.bucketStart(cursor.toInstant()).equals(cursor);
+            if (aligned && !granularity.nextBucket(cursor).isAfter(end)) {
+                return granularity;
+            }
+        }
+        return edge;
+    }
+
+    private RollupGranularity edgeGranularity(Instant from) {
+        Instant now = Instant.now();
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            if (granularity.isTopUsersTracked() && !from.isBefore(now.minus(granularity.getRetention()))) {
+                return granularity;
+            }
+        }
+        return RollupGranularity.MONTH;
+    }
+
+    private String topKey(RollupGranularity granularity, ZonedDateTime bucket) {
+        return String.format(TOP_KEY, granularity.getName(), granularity.bucketId(bucket));
+    }
+
+    /**
+     * 보존 기간 내에서 구간을 MAX_BUCKETS 이하로 덮는 가장 세밀한 단위
+     */
+    private RollupGranularity selectGranularity(Instant from, Instant to) {
+        Instant now = Instant.now();
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            boolean retained = !from.isBefore(now.minus(granularity.getRetention()));
+            if (retained && granularity.bucketCount(from, to) <= MAX_BUCKETS) {
+                return granularity;
+            }
+        }
+        return RollupGranularity.MONTH;
+    }
+
+    private List<ZonedDateTime> bucketsBetween(RollupGranularity granularity, Instant from, Instant to) {
+        if (granularity.bucketCount(from, to) > MAX_BUCKETS) {
+            throw new InvalidUsageQueryException(
+                "Range too large for " + granularity.getName() + " granularity (max " + MAX_BUCKETS + " buckets)");
+        }
+
+        List<ZonedDateTime> buckets = new ArrayList<>();
+        ZonedDateTime last = granularity.bucketStart(to);
+        for (ZonedDateTime bucket = granularity.bucketStart(from);
+             !bucket.isAfter(last);
+             bucket = granularity.nextBucket(bucket)) {
+            buckets.add(bucket);
+        }
+        return buckets;
+    }
+
+    private void validateRange(Instant from, Instant to) {
+        if (from.isAfter(to)) {
+            throw new InvalidUsageQueryException("'from' must not be after 'to'");
+        }
+    }
+}
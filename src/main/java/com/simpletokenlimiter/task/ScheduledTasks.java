@@ -1,11 +1,17 @@
 package com.simpletokenlimiter.task;
 
+import com.simpletokenlimiter.model.RollupGranularity;
+import com.simpletokenlimiter.service.UsageRollupService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
 /**
  * 스케줄링된 작업들
  */
@@ -14,9 +20,12 @@ import reactor.core.publisher.Flux;
 public class ScheduledTasks {
     
     private final ReactiveRedisTemplate<String, String> redisTemplate;
+    private final UsageRollupService usageRollupService;
     
-    public ScheduledTasks(ReactiveRedisTemplate<String, String> redisTemplate) {
+    public ScheduledTasks(ReactiveRedisTemplate<String, String> redisTemplate,
+                          UsageRollupService usageRollupService) {
         this.redisTemplate = redisTemplate;
+        this.usageRollupService = usageRollupService;
     }
     
     /**
@@ -50,15 +59,19 @@ public class ScheduledTasks {
     }
     
     /**
-     * 매일 자정에 통계 수집
+     * 매일 자정(UTC)에 통계 수집 (롤업 버킷과 같은 UTC 기준)
      */
-    @Scheduled(cron = "0 0 0 * * ?") // 매일 자정
+    @Scheduled(cron = "0 5 0 * * ?", zone = "UTC") // 매일 00:05 UTC, 자정 직전 기록 반영 대기
     public void collectDailyStats() {
         log.info("Collecting daily statistics");
         
-        redisTemplate.keys("token:usage:*:day")
-            .count()
-            .subscribe(count -> 
-                log.info("Active daily usage keys: {}", count));
+        // 전날(UTC) 일 단위 롤업 버킷 하나에서 상위 사용자 조회 (키 스캔 없음)
+        Instant from = LocalDate.now(ZoneOffset.UTC).minusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        Instant to = from.plusSeconds(86400 - 1);
+        usageRollupService.getTopUsers(from, to, 10, RollupGranularity.DAY)
+            .subscribe(
+                topUsers -> log.info("Top users for previous day: {}", topUsers),
+                error -> log.warn("Failed to collect daily statistics", error)
+            );
     }
 }
\ No newline at end of file
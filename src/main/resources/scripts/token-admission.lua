@@ -0,0 +1,53 @@
+-- 토큰 제한 승인 스크립트 (단일 왕복으로 동시 요청 + 윈도우별 사용량 확인)
+--
+-- KEYS[1]      : 동시 요청 키
+-- KEYS[2..10]  : 윈도우(minute, hour, day)별 total, prompt, completion 사용량 키
+-- ARGV[1]      : 최대 동시 요청 수 (0이면 미적용)
+-- ARGV[2]      : 동시 요청 키 TTL (초)
+-- ARGV[3]      : 요청 prompt compute unit
+-- ARGV[4]      : 요청 completion compute unit
+-- ARGV[5..13]  : 윈도우별 total, prompt, completion 한도 (0이면 미적용)
+--
+-- 반환: {상태, 윈도우 번호, 한도 종류 번호, 동시 요청 수,
+--        윈도우별 total, prompt, completion 사용량과 total 키 PTTL(ms) x 3}
+--   상태 0 허용, 1 동시 요청 초과, 2 사용량 초과 (윈도우/종류 번호는 상태 2일 때만 의미 있음)
+--   허용된 경우 동시 요청 수는 이번 요청을 포함한 값
+
+local result = {0, 0, 0, 0}
+local usage = {}
+for w = 0, 2 do
+  for k = 1, 3 do
+    local used = tonumber(redis.call('GET', KEYS[1 + w * 3 + k]) or '0')
+    usage[w * 3 + k] = used
+    table.insert(result, used)
+  end
+  table.insert(result, redis.call('PTTL', KEYS[2 + w * 3]))
+end
+
+local concurrent = tonumber(redis.call('GET', KEYS[1]) or '0')
+local maxConcurrent = tonumber(ARGV[1])
+result[4] = concurrent
+if maxConcurrent > 0 and concurrent >= maxConcurrent then
+  result[1] = 1
+  return result
+end
+
+local prompt = tonumber(ARGV[3])
+local completion = tonumber(ARGV[4])
+local requested = {prompt + completion, prompt, completion}
+
+for w = 0, 2 do
+  for k = 1, 3 do
+    local limit = tonumber(ARGV[4 + w * 3 + k])
+    if limit > 0 and usage[w * 3 + k] + requested[k] > limit then
+      result[1] = 2
+      result[2] = w + 1
+      result[3] = k
+      return result
+    end
+  end
+end
+
+result[4] = redis.call('INCR', KEYS[1])
+redis.call('EXPIRE', KEYS[1], ARGV[2])
+return result
@@ -0,0 +1,15 @@
+-- 토큰 한도 조회 스크립트 (읽기 전용, 단일 왕복)
+--
+-- KEYS[1]      : 동시 요청 키
+-- KEYS[2..10]  : 윈도우(minute, hour, day)별 total, prompt, completion 사용량 키
+--
+-- 반환: {동시 요청 수, 윈도우별 total, prompt, completion 사용량과 total 키 PTTL(ms) x 3}
+
+local result = {tonumber(redis.call('GET', KEYS[1]) or '0')}
+for w = 0, 2 do
+  for k = 1, 3 do
+    table.insert(result, tonumber(redis.call('GET', KEYS[1 + w * 3 + k]) or '0'))
+  end
+  table.insert(result, redis.call('PTTL', KEYS[2 + w * 3]))
+end
+return result
@@ -0,0 +1,31 @@
+-- 토큰 사용량 기록 스크립트 (단일 왕복, 원자적)
+--
+-- KEYS[1]      : 동시 요청 키
+-- KEYS[2..10]  : 윈도우(minute, hour, day)별 total, prompt, completion 사용량 키
+-- ARGV[1]      : 사용한 prompt compute unit
+-- ARGV[2]      : 사용한 completion compute unit
+-- ARGV[3..5]   : 윈도우별 TTL (초, 키에 TTL이 없을 때만 설정)
+--
+-- 반환: 기록 후 남은 동시 요청 수
+
+local prompt = tonumber(ARGV[1])
+local completion = tonumber(ARGV[2])
+local units = {prompt + completion, prompt, completion}
+
+for w = 0, 2 do
+  for k = 1, 3 do
+    local key = KEYS[1 + w * 3 + k]
+    redis.call('INCRBY', key, units[k])
+    -- TTL은 윈도우가 시작될 때만 설정 (매 기록마다 갱신하면 윈도우가 리셋되지 않음)
+    if redis.call('TTL', key) < 0 then
+      redis.call('EXPIRE', key, ARGV[3 + w])
+    end
+  end
+end
+
+local concurrent = redis.call('DECR', KEYS[1])
+if concurrent <= 0 then
+  redis.call('DEL', KEYS[1])
+  concurrent = 0
+end
+return concurrent
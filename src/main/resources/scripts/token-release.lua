@@ -0,0 +1,12 @@
+-- 동시 요청 슬롯 반환 스크립트 (승인 이후 요청이 실패하거나 취소된 경우)
+--
+-- KEYS[1]      : 동시 요청 키
+--
+-- 반환: 반환 후 남은 동시 요청 수
+
+local concurrent = redis.call('DECR', KEYS[1])
+if concurrent <= 0 then
+  redis.call('DEL', KEYS[1])
+  concurrent = 0
+end
+return concurrent
@@ -0,0 +1,22 @@
+-- 사용량 롤업 기록 스크립트 (단일 왕복, 원자적)
+--
+-- KEYS[1..n]   : 집계 단위별 사용자 카운터 키 (INCRBY)
+-- KEYS[n+1..]  : 집계 단위별 상위 사용자 정렬 집합 키 (ZINCRBY)
+-- ARGV[1]      : 토큰 수
+-- ARGV[2]      : 사용자 ID
+-- ARGV[3]      : 카운터 키 개수 n
+-- ARGV[4..]    : 키 순서대로 보존 기간 (초)
+
+local tokens = tonumber(ARGV[1])
+local counters = tonumber(ARGV[3])
+
+for i = 1, #KEYS do
+  if i <= counters then
+    redis.call('INCRBY', KEYS[i], tokens)
+  else
+    redis.call('ZINCRBY', KEYS[i], tokens, ARGV[2])
+  end
+  redis.call('EXPIRE', KEYS[i], ARGV[3 + i])
+end
+
+return #KEYS
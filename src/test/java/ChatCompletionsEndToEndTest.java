@@ -0,0 +1,136 @@
+import com.simpletokenlimiter.SimpleTokenLimiterApplication;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * /api/v1/chat/completions 종단 간 테스트 (실제 Redis + 스텁 vLLM)
+ *
+ * BlockHound가 테스트 시 자동 설치되므로, 요청 처리 중 이벤트 루프에서
+ * 블로킹 호출이 발생하면 서버가 500을 돌려주어 테스트가 실패한다.
+ * Redis 연결은 테스트에서 미리 맺지 않으므로 첫 요청도 그대로 검증된다.
+ */
+@SpringBootTest(classes = SimpleTokenLimiterApplication.class,
+                webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Testcontainers(disabledWithoutDocker = true)
+class ChatCompletionsEndToEndTest {
+
+    private static final String RESPONSE =
+        "{\"choices\": [], \"usage\": {\"prompt_tokens\": 10, \"completion_tokens\": 20, \"total_tokens\": 30}}";
+
+    private static final int MAX_REQUEST_BODY_BYTES = 1024;
+
+    @Container
+    private static final GenericContainer<?> REDIS =
+        new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+
+    private static final AtomicReference<byte[]> FORWARDED = new AtomicReference<>();
+
+    private static final DisposableServer UPSTREAM = HttpServer.create()
+        .host("127.0.0.1")
+        .port(0)
+        .route(routes -> routes.post("/v1/chat/completions", (request, response) ->
+            request.receive().aggregate().asByteArray()
+                .flatMap(body -> {
+                    FORWARDED.set(body);
+                    return response.header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .sendString(Mono.just(RESPONSE))
+                        .then();
+                })))
+        .bindNow();
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReactiveRedisTemplate<String, String> redisTemplate;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.redis.host", REDIS::getHost);
+        registry.add("spring.data.redis.port", () -> REDIS.getMappedPort(6379));
+        registry.add("token.limit.vllm-url", () -> "http://127.0.0.1:" + UPSTREAM.port());
+        registry.add("token.limit.max-request-body-bytes", () -> MAX_REQUEST_BODY_BYTES);
+    }
+
+    @AfterAll
+    static void stopUpstream() {
+        UPSTREAM.disposeNow();
+    }
+
+    @BeforeEach
+    void setUp() {
+        FORWARDED.set(null);
+    }
+
+    @Test
+    void testChatCompletions_ForwardsBodyAndRecordsUsage() {
+        // Given
+        byte[] body = ("{\"model\": \"llama3.2-1b\", \"max_tokens\": 50, "
+            + "\"messages\": [{\"role\": \"user\", \"content\": \"Hello, world!\"}]}")
+            .getBytes(StandardCharsets.UTF_8);
+
+        // When & Then
+        webTestClient.post()
+            .uri("/api/v1/chat/completions")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header("X-User-ID", "e2e-user")
+            .bodyValue(body)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals("X-RateLimit-Limit-Minute", "1000")
+            .expectHeader().valueEquals("X-RateLimit-Budget-Minute", "rate")
+            .expectHeader().valueEquals("X-RateLimit-Limit-Concurrent", "5")
+            .expectHeader().valueEquals("X-RateLimit-Remaining-Concurrent", "4")
+            .expectBody(String.class).isEqualTo(RESPONSE);
+
+        // 요청 본문은 재직렬화 없이 그대로 업스트림에 전달되어야 함
+        assertArrayEquals(body, FORWARDED.get());
+        // 실제 사용량(10 + 20)이 기록되고 동시 요청 슬롯이 반환되어야 함
+        assertEquals("30", redisTemplate.opsForValue().get("token:usage:e2e-user:minute").block());
+        assertEquals("10", redisTemplate.opsForValue().get("token:usage:e2e-user:minute:prompt").block());
+        assertEquals(Boolean.FALSE, redisTemplate.hasKey("concurrent:e2e-user").block());
+    }
+
+    @Test
+    void testChatCompletions_RejectsOversizeBody() {
+        // Given
+        String content = "a".repeat(MAX_REQUEST_BODY_BYTES);
+        byte[] body = ("{\"messages\": [{\"role\": \"user\", \"content\": \"" + content + "\"}]}")
+            .getBytes(StandardCharsets.UTF_8);
+
+        // When & Then
+        webTestClient.post()
+            .uri("/api/v1/chat/completions")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header("X-User-ID", "e2e-oversize-user")
+            .bodyValue(body)
+            .exchange()
+            .expectStatus().isEqualTo(413)
+            .expectBody().jsonPath("$.error").isEqualTo("request_too_large");
+
+        assertNull(FORWARDED.get());
+    }
+}
\ No newline at end of file
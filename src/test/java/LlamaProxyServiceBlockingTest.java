@@ -0,0 +1,296 @@
+import com.simpletokenlimiter.config.TokenLimitConfig;
+import com.simpletokenlimiter.exception.ModelServiceException;
+import com.simpletokenlimiter.exception.ServiceOverloadedException;
+import com.simpletokenlimiter.model.RateLimitStatus;
+import com.simpletokenlimiter.model.TokenCount;
+import com.simpletokenlimiter.service.LlamaProxyService;
+import com.simpletokenlimiter.service.TokenLimitService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.blockhound.BlockingOperationError;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 요청 경로 논블로킹 검증 (BlockHound가 테스트 시 자동 설치됨)
+ *
+ * Schedulers.parallel() 스레드는 이벤트 루프와 동일하게 NonBlocking으로 취급되므로,
+ * 여기서 블로킹 호출이 발생하면 BlockingOperationError로 테스트가 실패한다.
+ */
+@ExtendWith(MockitoExtension.class)
+class LlamaProxyServiceBlockingTest {
+
+    private static final String RESPONSE =
+        "{\"choices\": [], \"usage\": {\"prompt_tokens\": 10, \"completion_tokens\": 20, \"total_tokens\": 30}}";
+
+    private static final RateLimitStatus RATE_LIMIT = new RateLimitStatus(List.of(), 0, 0);
+
+    @Mock
+    private TokenLimitService tokenLimitService;
+
+    private TokenLimitConfig config;
+    private Scheduler parsingScheduler;
+    private LlamaProxyService llamaProxyService;
+
+    @BeforeEach
+    void setUp() {
+        config = new TokenLimitConfig();
+        config.setParsingOffloadThresholdBytes(1024);
+        parsingScheduler = Schedulers.newBoundedElastic(2, 100, "token-parsing");
+
+        WebClient webClient = WebClient.builder()
+            .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(RESPONSE)
+                .build()))
+            .build();
+
+        llamaProxyService = new LlamaProxyService(webClient, tokenLimitService, config, parsingScheduler);
+    }
+
+    @AfterEach
+    void tearDown() {
+        parsingScheduler.dispose();
+    }
+
+    @Test
+    void testBlockHoundInstalled() {
+        StepVerifier.create(Mono.delay(Duration.ofMillis(1))
+                .doOnNext(tick -> {
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }))
+            .expectError(BlockingOperationError.class)
+            .verify();
+    }
+
+    @Test
+    void testProxyToLlama_SmallBodyDoesNotBlock() {
+        // Given
+        DataBuffer requestBody = toBuffer(
+            "{\"messages\": [{\"role\": \"user\", \"content\": \"Hello!\"}], \"max_tokens\": 150, \"model\": \"llama3.2-1b\"}");
+
+        when(tokenLimitService.checkTokenLimit(anyString(), any(TokenCount.class))).thenReturn(Mono.just(RATE_LIMIT));
+        when(tokenLimitService.recordTokenUsage(anyString(), any(TokenCount.class), anyString())).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(llamaProxyService.proxyToLlama(requestBody, "test-user")
+                .subscribeOn(Schedulers.parallel()))
+            .expectNextMatches(response -> Arrays.equals(RESPONSE.getBytes(StandardCharsets.UTF_8), response.getBody()))
+            .verifyComplete();
+
+        verify(tokenLimitService).checkTokenLimit("test-user", new TokenCount("llama3.2-1b", 1, 150));
+        verify(tokenLimitService).recordTokenUsage(any(), eq(new TokenCount("llama3.2-1b", 10, 20)), any());
+        verify(tokenLimitService, never()).releaseConcurrentRequest(anyString());
+    }
+
+    @Test
+    void testProxyToLlama_LargeBodyParsedOffEventLoop() {
+        // Given
+        DataBuffer requestBody = toBuffer("{\"messages\": [{\"role\": \"user\", \"content\": \""
+            + "a".repeat(4096) + "\"}]}");
+        AtomicReference<String> parsingThread = new AtomicReference<>();
+
+        when(tokenLimitService.checkTokenLimit(anyString(), any(TokenCount.class))).thenAnswer(invocation -> {
+            parsingThread.set(Thread.currentThread().getName());
+            return Mono.just(RATE_LIMIT);
+        });
+        when(tokenLimitService.recordTokenUsage(anyString(), any(TokenCount.class), anyString())).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(llamaProxyService.proxyToLlama(requestBody, "test-user")
+                .subscribeOn(Schedulers.parallel()))
+            .expectNextMatches(response -> Arrays.equals(RESPONSE.getBytes(StandardCharsets.UTF_8), response.getBody()))
+            .verifyComplete();
+
+        assertTrue(parsingThread.get().startsWith("token-parsing"));
+        verify(tokenLimitService).checkTokenLimit("test-user", new TokenCount(null, 1024, 100));
+        // 토큰 추정 후에도 업스트림 전송을 위해 읽기 위치가 유지되어야 함
+        assertEquals(0, requestBody.readPosition());
+    }
+
+    @Test
+    void testProxyToLlama_NullMaxTokensUsesDefault() {
+        // Given
+        DataBuffer requestBody = toBuffer("{\"model\": \"llama3.2-1b\", \"max_tokens\": null, "
+            + "\"messages\": [{\"role\": \"user\", \"content\": \"abcdefgh\"}]}");
+
+        when(tokenLimitService.checkTokenLimit(anyString(), any(TokenCount.class))).thenReturn(Mono.just(RATE_LIMIT));
+        when(tokenLimitService.recordTokenUsage(anyString(), any(TokenCount.class), anyString())).thenReturn(Mono.empty());
+
+        // When & Then: null은 무제한 생성이므로 0이 아닌 기본 생성 토큰으로 예약
+        StepVerifier.create(llamaProxyService.proxyToLlama(requestBody, "test-user"))
+            .expectNextCount(1)
+            .verifyComplete();
+
+        verify(tokenLimitService).checkTokenLimit("test-user", new TokenCount("llama3.2-1b", 2, 100));
+    }
+
+    @Test
+    void testProxyToLlama_NonNumericMaxTokensSkipped() {
+        // Given: 객체 값의 중첩 필드를 최상위 필드로 읽지 않아야 뒤의 messages가 집계됨
+        DataBuffer requestBody = toBuffer("{\"max_tokens\": {\"value\": 5, \"messages\": []}, "
+            + "\"messages\": [{\"role\": \"user\", \"content\": \"abcdefgh\"}]}");
+
+        when(tokenLimitService.checkTokenLimit(anyString(), any(TokenCount.class))).thenReturn(Mono.just(RATE_LIMIT));
+        when(tokenLimitService.recordTokenUsage(anyString(), any(TokenCount.class), anyString())).thenReturn(Mono.empty());
+
+        // When & Then
+        StepVerifier.create(llamaProxyService.proxyToLlama(requestBody, "test-user"))
+            .expectNextCount(1)
+            .verifyComplete();
+
+        verify(tokenLimitService).checkTokenLimit("test-user", new TokenCount(null, 2, 100));
+    }
+
+    @Test
+    void testProxyToLlama_MultibyteResponseOffloadedByByteLength() {
+        // Given: 400자이지만 UTF-8로 1200바이트 이상인 응답 (임계값 1024바이트)
+        String multibyteResponse = "{\"choices\": [{\"text\": \"" + "가".repeat(400) + "\"}], "
+            + "\"usage\": {\"prompt_tokens\": 10, \"completion_tokens\": 20}}";
+        WebClient multibyteClient = WebClient.builder()
+            .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(multibyteResponse)
+                .build()))
+            .build();
+        LlamaProxyService multibyteProxy = new LlamaProxyService(multibyteClient, tokenLimitService, config, parsingScheduler);
+        AtomicReference<String> parsingThread = new AtomicReference<>();
+
+        when(tokenLimitService.checkTokenLimit(anyString(), any(TokenCount.class))).thenReturn(Mono.just(RATE_LIMIT));
+        when(tokenLimitService.recordTokenUsage(anyString(), any(TokenCount.class), anyString())).thenAnswer(invocation -> {
+            parsingThread.set(Thread.currentThread().getName());
+            return Mono.empty();
+        });
+
+        // When & Then
+        StepVerifier.create(multibyteProxy.proxyToLlama(toBuffer("{\"messages\": []}"), "test-user")
+                .subscribeOn(Schedulers.parallel()))
+            .expectNextMatches(response -> Arrays.equals(multibyteResponse.getBytes(StandardCharsets.UTF_8), response.getBody()))
+            .verifyComplete();
+
+        assertTrue(parsingThread.get().startsWith("token-parsing"));
+    }
+
+    @Test
+    void testProxyToLlama_SaturatedParsingQueueRejectsRequest() {
+        // Given: 작업을 받을 수 없는 파싱 스케줄러
+        parsingScheduler.dispose();
+        DataBuffer requestBody = toBuffer("{\"messages\": [{\"role\": \"user\", \"content\": \""
+            + "a".repeat(4096) + "\"}]}");
+
+        // When & Then: 승인 전이므로 한도 확인 없이 재시도 요청
+        StepVerifier.create(llamaProxyService.proxyToLlama(requestBody, "test-user"))
+            .expectErrorMatches(ex -> ex instanceof ServiceOverloadedException
+                && ((ServiceOverloadedException) ex).getRetryAfter() == 1)
+            .verify();
+
+        verify(tokenLimitService, never()).checkTokenLimit(anyString(), any(TokenCount.class));
+    }
+
+    @Test
+    void testProxyToLlama_SaturatedParsingQueueParsesResponseInline() {
+        // Given: 작업을 받을 수 없는 파싱 스케줄러와 임계값 이상의 응답
+        parsingScheduler.dispose();
+        String largeResponse = "{\"choices\": [{\"text\": \"" + "a".repeat(2048) + "\"}], "
+            + "\"usage\": {\"prompt_tokens\": 10, \"completion_tokens\": 20}}";
+        WebClient largeClient = WebClient.builder()
+            .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(largeResponse)
+                .build()))
+            .build();
+        LlamaProxyService largeProxy = new LlamaProxyService(largeClient, tokenLimitService, config, parsingScheduler);
+
+        when(tokenLimitService.checkTokenLimit(anyString(), any(TokenCount.class))).thenReturn(Mono.just(RATE_LIMIT));
+        when(tokenLimitService.recordTokenUsage(anyString(), any(TokenCount.class), anyString())).thenReturn(Mono.empty());
+
+        // When & Then: 이미 생성된 응답은 버리지 않고 사용량도 기록
+        StepVerifier.create(largeProxy.proxyToLlama(toBuffer("{\"messages\": []}"), "test-user"))
+            .expectNextCount(1)
+            .verifyComplete();
+
+        verify(tokenLimitService).recordTokenUsage(anyString(), eq(new TokenCount(null, 10, 20)), anyString());
+    }
+
+    @Test
+    void testProxyToLlama_UpstreamErrorCarriesRateLimit() {
+        // Given
+        WebClient failingClient = WebClient.builder()
+            .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.BAD_GATEWAY).build()))
+            .build();
+        LlamaProxyService failingProxy = new LlamaProxyService(failingClient, tokenLimitService, config, parsingScheduler);
+
+        when(tokenLimitService.checkTokenLimit(anyString(), any(TokenCount.class))).thenReturn(Mono.just(RATE_LIMIT));
+        when(tokenLimitService.releaseConcurrentRequest(anyString())).thenReturn(Mono.empty());
+
+        // When & Then: 승인 이후 오류에는 승인 시점의 한도 상태가 담김
+        StepVerifier.create(failingProxy.proxyToLlama(toBuffer("{\"messages\": []}"), "test-user"))
+            .expectErrorMatches(ex -> ex instanceof ModelServiceException
+                && ((ModelServiceException) ex).getRateLimitStatus() == RATE_LIMIT)
+            .verify();
+
+        // 사용량 기록 없이 실패했으므로 동시 요청 슬롯은 한 번만 반환되어야 함
+        verify(tokenLimitService, times(1)).releaseConcurrentRequest("test-user");
+        verify(tokenLimitService, never()).recordTokenUsage(anyString(), any(TokenCount.class), anyString());
+    }
+
+    @Test
+    void testProxyToLlama_CancelReleasesSlot() {
+        // Given: 응답하지 않는 업스트림
+        WebClient hangingClient = WebClient.builder()
+            .exchangeFunction(request -> Mono.never())
+            .build();
+        LlamaProxyService hangingProxy = new LlamaProxyService(hangingClient, tokenLimitService, config, parsingScheduler);
+
+        when(tokenLimitService.checkTokenLimit(anyString(), any(TokenCount.class))).thenReturn(Mono.just(RATE_LIMIT));
+        when(tokenLimitService.releaseConcurrentRequest(anyString())).thenReturn(Mono.empty());
+
+        // When: 클라이언트 연결 종료
+        StepVerifier.create(hangingProxy.proxyToLlama(toBuffer("{\"messages\": []}"), "test-user"))
+            .expectSubscription()
+            .expectNoEvent(Duration.ofMillis(100))
+            .thenCancel()
+            .verify();
+
+        // Then
+        verify(tokenLimitService, times(1)).releaseConcurrentRequest("test-user");
+    }
+
+    private static DataBuffer toBuffer(String json) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
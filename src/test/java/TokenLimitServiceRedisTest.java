@@ -0,0 +1,81 @@
+import com.simpletokenlimiter.config.TokenLimitConfig;
+import com.simpletokenlimiter.model.TokenCount;
+import com.simpletokenlimiter.service.TokenLimitService;
+import com.simpletokenlimiter.service.UsageRollupService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TokenLimitService Lua 스크립트 동작 테스트 (실제 Redis)
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class TokenLimitServiceRedisTest {
+
+    @Container
+    private static final GenericContainer<?> REDIS =
+        new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+
+    private LettuceConnectionFactory connectionFactory;
+    private ReactiveRedisTemplate<String, String> redisTemplate;
+    private TokenLimitService tokenLimitService;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(REDIS.getHost(), REDIS.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new ReactiveRedisTemplate<>(connectionFactory, RedisSerializationContext.string());
+        redisTemplate.execute(connection -> connection.serverCommands().flushAll()).blockLast();
+
+        tokenLimitService = new TokenLimitService(redisTemplate, new TokenLimitConfig(),
+            new UsageRollupService(redisTemplate));
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void testRecordTokenUsage_DoesNotExtendWindow() {
+        // Given: 첫 기록으로 day 윈도우 시작 후, 윈도우가 100초 남은 상태로 조정
+        String dayKey = "token:usage:test-user:day";
+        tokenLimitService.recordTokenUsage("test-user", new TokenCount(null, 10, 20), "req-1").block();
+        assertTrue(redisTemplate.getExpire(dayKey).block().getSeconds() > 86000);
+        redisTemplate.expire(dayKey, Duration.ofSeconds(100)).block();
+
+        // When
+        tokenLimitService.recordTokenUsage("test-user", new TokenCount(null, 5, 5), "req-2").block();
+
+        // Then: 사용량은 누적되고 윈도우 종료 시점은 그대로
+        assertEquals("40", redisTemplate.opsForValue().get(dayKey).block());
+        assertTrue(redisTemplate.getExpire(dayKey).block().getSeconds() <= 100);
+    }
+
+    @Test
+    void testReleaseConcurrentRequest_ReturnsAdmittedSlot() {
+        // Given: 승인으로 동시 요청 슬롯 하나 점유
+        tokenLimitService.checkTokenLimit("test-user", new TokenCount(null, 10, 20)).block();
+        assertEquals("1", redisTemplate.opsForValue().get("concurrent:test-user").block());
+
+        // When
+        tokenLimitService.releaseConcurrentRequest("test-user").block();
+
+        // Then
+        assertFalse(redisTemplate.hasKey("concurrent:test-user").block());
+    }
+}
\ No newline at end of file
@@ -1,21 +1,36 @@
 import com.simpletokenlimiter.config.TokenLimitConfig;
 import com.simpletokenlimiter.exception.TokenLimitExceededException;
+import com.simpletokenlimiter.model.RateLimitStatus;
+import com.simpletokenlimiter.model.TokenCount;
 import com.simpletokenlimiter.service.TokenLimitService;
+import com.simpletokenlimiter.service.UsageRollupService;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
-import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpHeaders;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
-import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -28,11 +43,17 @@ class TokenLimitServiceTest {
     private ReactiveRedisTemplate<String, String> redisTemplate;
     
     @Mock
-    private ReactiveValueOperations<String, String> valueOperations;
+    private UsageRollupService usageRollupService;
     
     private TokenLimitService tokenLimitService;
     private TokenLimitConfig config;
     
+    // 윈도우별 (total, prompt, completion 사용량, PTTL ms): minute 30초, hour 키 없음, day 10시간 남음
+    private static final List<Long> WINDOW_USAGE = List.of(
+        300L, 120L, 180L, 30000L,
+        2000L, 800L, 1200L, -2L,
+        5000L, 2000L, 3000L, 36000000L);
+    
     @BeforeEach
     void setUp() {
         config = new TokenLimitConfig();
@@ -41,55 +62,198 @@ class TokenLimitServiceTest {
         config.setMaxTokensPerDay(100000);
         config.setMaxConcurrentRequests(5);
         
-        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        TokenLimitConfig.ModelCost heavyModel = new TokenLimitConfig.ModelCost();
+        heavyModel.setPromptWeight(2.0);
+        heavyModel.setCompletionWeight(4.0);
+        config.getModels().put("heavy-model", heavyModel);
         
-        tokenLimitService = new TokenLimitService(redisTemplate, config);
+        tokenLimitService = new TokenLimitService(redisTemplate, config, usageRollupService);
     }
     
     @Test
     void testCheckTokenLimit_Success() {
         // Given
         String userId = "test-user";
-        int requestedTokens = 100;
+        TokenCount requested = new TokenCount("llama3.2-1b", 50, 100);
         
-        when(valueOperations.get(anyString())).thenReturn(Mono.just("0"));
-        when(valueOperations.increment(anyString())).thenReturn(Mono.just(1L));
-        when(redisTemplate.expire(anyString(), any(Duration.class))).thenReturn(Mono.just(true));
+        doReturn(Flux.just(admissionResult(0, 0, 0)))
+            .when(redisTemplate).execute(any(RedisScript.class), anyList(), anyList());
         
-        // When & Then
-        StepVerifier.create(tokenLimitService.checkTokenLimit(userId, requestedTokens))
-            .expectNext(true)
+        // When & Then: 승인된 요청의 추정치(150)는 남은 양에서 미리 차감
+        StepVerifier.create(tokenLimitService.checkTokenLimit(userId, requested))
+            .assertNext(status -> {
+                RateLimitStatus.Window minute = status.getWindows().get(0);
+                assertEquals("rate", minute.getLimitType());
+                assertEquals(1000, minute.getLimit());
+                assertEquals(300, minute.getTotalUsed());
+                assertEquals(120, minute.getPromptUsed());
+                assertEquals(550, minute.getRemaining());
+                assertEquals(30, minute.getResetSeconds());
+                assertEquals(3600, status.getWindows().get(1).getResetSeconds());
+                assertEquals(2, status.getConcurrentRemaining()); // 이번 요청 포함 3개 진행 중
+            })
             .verifyComplete();
     }
     
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCheckTokenLimit_AppliesModelWeights() {
+        // Given
+        String userId = "test-user";
+        TokenCount requested = new TokenCount("heavy-model", 50, 100);
+        ArgumentCaptor<List<?>> args = ArgumentCaptor.forClass(List.class);
+        
+        doReturn(Flux.just(admissionResult(0, 0, 0)))
+            .when(redisTemplate).execute(any(RedisScript.class), anyList(), anyList());
+        
+        // When
+        StepVerifier.create(tokenLimitService.checkTokenLimit(userId, requested))
+            .expectNextCount(1)
+            .verifyComplete();
+        
+        // Then: prompt 50 × 2.0, completion 100 × 4.0
+        verify(redisTemplate).execute(any(RedisScript.class), anyList(), args.capture());
+        assertEquals("100", args.getValue().get(2));
+        assertEquals("400", args.getValue().get(3));
+    }
+    
     @Test
     void testCheckTokenLimit_ConcurrentLimitExceeded() {
         // Given
         String userId = "test-user";
-        int requestedTokens = 100;
+        TokenCount requested = new TokenCount(null, 50, 100);
         
-        when(valueOperations.get(anyString())).thenReturn(Mono.just("5")); // 최대치 도달
+        doReturn(Flux.just(admissionResult(1, 0, 0))) // 최대치 도달
+            .when(redisTemplate).execute(any(RedisScript.class), anyList(), anyList());
         
         // When & Then
-        StepVerifier.create(tokenLimitService.checkTokenLimit(userId, requestedTokens))
+        StepVerifier.create(tokenLimitService.checkTokenLimit(userId, requested))
             .expectError(TokenLimitExceededException.class)
             .verify();
     }
     
     @Test
+    void testCheckTokenLimit_PromptBudgetExceeded() {
+        // Given
+        String userId = "test-user";
+        TokenCount requested = new TokenCount(null, 500, 100);
+        
+        doReturn(Flux.just(admissionResult(2, 1, 2))) // minute 윈도우 prompt 한도 초과
+            .when(redisTemplate).execute(any(RedisScript.class), anyList(), anyList());
+        
+        // When & Then: Retry-After는 minute 윈도우 리셋까지 남은 시간
+        StepVerifier.create(tokenLimitService.checkTokenLimit(userId, requested))
+            .expectErrorMatches(ex -> ex instanceof TokenLimitExceededException
+                && "prompt".equals(((TokenLimitExceededException) ex).getLimitType())
+                && ((TokenLimitExceededException) ex).getRetryAfter() == 30
+                && ((TokenLimitExceededException) ex).getRateLimitStatus() != null)
+            .verify();
+    }
+    
+    @Test
+    void testCheckTokenLimit_ReportsTightestBudget() {
+        // Given: minute prompt 한도 400 -> 400 - 120 - 50 = 230 (total 기준 550보다 빠듯함)
+        config.setMaxPromptTokensPerMinute(400);
+        TokenCount requested = new TokenCount(null, 50, 100);
+        
+        doReturn(Flux.just(admissionResult(0, 0, 0)))
+            .when(redisTemplate).execute(any(RedisScript.class), anyList(), anyList());
+        
+        // When & Then
+        StepVerifier.create(tokenLimitService.checkTokenLimit("test-user", requested))
+            .assertNext(status -> {
+                HttpHeaders headers = status.toHttpHeaders();
+                assertEquals("400", headers.getFirst("X-RateLimit-Limit-Minute"));
+                assertEquals("230", headers.getFirst("X-RateLimit-Remaining-Minute"));
+                assertEquals("prompt", headers.getFirst("X-RateLimit-Budget-Minute"));
+                assertEquals("prompt", headers.getFirst("X-RateLimit-Budget"));
+                assertEquals("rate", headers.getFirst("X-RateLimit-Budget-Hour"));
+            })
+            .verifyComplete();
+    }
+    
+    @Test
+    void testGetQuotaStatus_Headers() {
+        // Given
+        doReturn(Flux.just(quotaResult(2)))
+            .when(redisTemplate).execute(any(RedisScript.class), anyList(), anyList());
+        
+        // When & Then: 남은 양이 가장 적은 윈도우(minute)가 기본 헤더로 노출
+        StepVerifier.create(tokenLimitService.getQuotaStatus("test-user"))
+            .assertNext(status -> {
+                HttpHeaders headers = status.toHttpHeaders();
+                assertEquals("700", headers.getFirst("X-RateLimit-Remaining-Minute"));
+                assertEquals("8000", headers.getFirst("X-RateLimit-Remaining-Hour"));
+                assertEquals("36000", headers.getFirst("X-RateLimit-Reset-Day"));
+                assertEquals("1000", headers.getFirst("X-RateLimit-Limit"));
+                assertEquals("700", headers.getFirst("X-RateLimit-Remaining"));
+                assertEquals("30", headers.getFirst("X-RateLimit-Reset"));
+                assertEquals("5", headers.getFirst("X-RateLimit-Limit-Concurrent"));
+                assertEquals("3", headers.getFirst("X-RateLimit-Remaining-Concurrent"));
+            })
+            .verifyComplete();
+    }
+    
+    @Test
+    void testGetQuotaStatus_SkipsDisabledLimits() {
+        // Given: day 한도와 동시 요청 한도 미적용
+        config.setMaxTokensPerDay(0);
+        config.setMaxConcurrentRequests(0);
+        
+        doReturn(Flux.just(quotaResult(0)))
+            .when(redisTemplate).execute(any(RedisScript.class), anyList(), anyList());
+        
+        // When & Then
+        StepVerifier.create(tokenLimitService.getQuotaStatus("test-user"))
+            .assertNext(status -> {
+                HttpHeaders headers = status.toHttpHeaders();
+                assertNull(headers.getFirst("X-RateLimit-Limit-Day"));
+                assertNull(headers.getFirst("X-RateLimit-Limit-Concurrent"));
+                assertEquals("1000", headers.getFirst("X-RateLimit-Limit-Minute"));
+                assertEquals(5000, status.getWindows().get(2).getTotalUsed());
+            })
+            .verifyComplete();
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
     void testRecordTokenUsage_Success() {
         // Given
         String userId = "test-user";
-        int tokensUsed = 50;
+        TokenCount used = new TokenCount("llama3.2-1b", 20, 30);
         String requestId = "req-123";
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<?>> args = ArgumentCaptor.forClass(List.class);
         
-        when(valueOperations.increment(anyString(), any(Long.class))).thenReturn(Mono.just(50L));
-        when(redisTemplate.expire(anyString(), any(Duration.class))).thenReturn(Mono.just(true));
-        when(valueOperations.decrement(anyString())).thenReturn(Mono.just(0L));
-        when(redisTemplate.delete(anyString())).thenReturn(Mono.just(1L));
+        doReturn(Flux.just(0L))
+            .when(redisTemplate).execute(any(RedisScript.class), anyList(), anyList());
+        when(usageRollupService.recordUsage(anyString(), anyInt(), any(Instant.class))).thenReturn(Mono.empty());
         
         // When & Then
-        StepVerifier.create(tokenLimitService.recordTokenUsage(userId, tokensUsed, requestId))
+        StepVerifier.create(tokenLimitService.recordTokenUsage(userId, used, requestId))
             .verifyComplete();
+        
+        // Then: 윈도우 카운터 증가와 동시 요청 슬롯 반환이 스크립트 한 번으로 처리됨
+        verify(redisTemplate).execute(any(RedisScript.class), keys.capture(), args.capture());
+        assertEquals("concurrent:test-user", keys.getValue().get(0));
+        assertEquals(List.of(
+            "token:usage:test-user:minute",
+            "token:usage:test-user:minute:prompt",
+            "token:usage:test-user:minute:completion"), keys.getValue().subList(1, 4));
+        assertEquals(10, keys.getValue().size());
+        assertEquals(List.of("20", "30", "60", "3600", "86400"), args.getValue());
+        verify(usageRollupService).recordUsage(eq("test-user"), eq(50), any(Instant.class));
+    }
+    
+    private static List<Long> admissionResult(long status, long window, long limitType) {
+        List<Long> result = new ArrayList<>(List.of(status, window, limitType, 3L));
+        result.addAll(WINDOW_USAGE);
+        return result;
+    }
+    
+    private static List<Long> quotaResult(long concurrent) {
+        List<Long> result = new ArrayList<>(List.of(concurrent));
+        result.addAll(WINDOW_USAGE);
+        return result;
     }
 }
\ No newline at end of file
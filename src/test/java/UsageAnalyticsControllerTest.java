@@ -0,0 +1,62 @@
+import com.simpletokenlimiter.controller.UsageAnalyticsController;
+import com.simpletokenlimiter.exception.GlobalExceptionHandler;
+import com.simpletokenlimiter.service.UsageRollupService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * UsageAnalyticsController 요청 파라미터 검증 테스트
+ */
+@ExtendWith(MockitoExtension.class)
+class UsageAnalyticsControllerTest {
+
+    @Mock
+    private UsageRollupService usageRollupService;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        webTestClient = WebTestClient.bindToController(new UsageAnalyticsController(usageRollupService))
+            .controllerAdvice(new GlobalExceptionHandler())
+            .build();
+    }
+
+    @Test
+    void testGetTopUsers_MalformedTimestamp() {
+        webTestClient.get()
+            .uri("/api/v1/analytics/top-users?from=yesterday")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody().jsonPath("$.error").isEqualTo("invalid_request");
+
+        verifyNoInteractions(usageRollupService);
+    }
+
+    @Test
+    void testGetTopUsers_MalformedLimit() {
+        webTestClient.get()
+            .uri("/api/v1/analytics/top-users?limit=abc")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody().jsonPath("$.error").isEqualTo("invalid_request");
+
+        verifyNoInteractions(usageRollupService);
+    }
+
+    @Test
+    void testGetUsageHistory_UnknownGranularity() {
+        webTestClient.get()
+            .uri("/api/v1/analytics/usage/test-user?granularity=week")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody().jsonPath("$.message").isEqualTo("Unknown granularity: week");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,201 @@
+import com.simpletokenlimiter.exception.InvalidUsageQueryException;
+import com.simpletokenlimiter.model.RollupGranularity;
+import com.simpletokenlimiter.model.UserUsage;
+import com.simpletokenlimiter.service.UsageRollupService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.ReactiveZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * UsageRollupService 테스트
+ */
+@ExtendWith(MockitoExtension.class)
+class UsageRollupServiceTest {
+
+    @Mock
+    private ReactiveRedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ReactiveValueOperations<String, String> valueOperations;
+
+    @Mock
+    private ReactiveZSetOperations<String, String> zSetOperations;
+
+    private UsageRollupService usageRollupService;
+
+    @BeforeEach
+    void setUp() {
+        usageRollupService = new UsageRollupService(redisTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRecordUsage_WritesAllBucketsInOneScript() {
+        // Given
+        Instant timestamp = Instant.parse("2024-01-01T10:15:30Z");
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<?>> args = ArgumentCaptor.forClass(List.class);
+
+        doReturn(Flux.just(7L))
+            .when(redisTemplate).execute(any(RedisScript.class), anyList(), anyList());
+
+        // When
+        StepVerifier.create(usageRollupService.recordUsage("test-user", 50, timestamp))
+            .verifyComplete();
+
+        // Then: 카운터 4개(분/시/일/월) + 랭킹 3개(시/일/월), 키 순서대로 보존 기간(초)
+        verify(redisTemplate).execute(any(RedisScript.class), keys.capture(), args.capture());
+        assertEquals(List.of(
+            "usage:rollup:minute:test-user:202401011015",
+            "usage:rollup:hour:test-user:2024010110",
+            "usage:rollup:day:test-user:20240101",
+            "usage:rollup:month:test-user:202401",
+            "usage:top:hour:2024010110",
+            "usage:top:day:20240101",
+            "usage:top:month:202401"), keys.getValue());
+        assertEquals(List.of(
+            "50", "test-user", "4",
+            "172800", "7776000", "63072000", "315360000",
+            "7776000", "63072000", "315360000"), args.getValue());
+    }
+
+    @Test
+    void testRecordUsage_FailureIsIgnored() {
+        // Given
+        doReturn(Flux.error(new IllegalStateException("redis down")))
+            .when(redisTemplate).execute(any(RedisScript.class), anyList(), anyList());
+
+        // When & Then
+        StepVerifier.create(usageRollupService.recordUsage("test-user", 50, Instant.now()))
+            .verifyComplete();
+    }
+
+    @Test
+    void testGetTopUsers_SingleBucketReadsDirectly() {
+        // Given
+        Instant from = Instant.parse("2024-01-01T00:00:00Z");
+        Instant to = Instant.parse("2024-01-01T23:59:59Z");
+
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.reverseRangeWithScores("usage:top:day:20240101", Range.closed(0L, 1L)))
+            .thenReturn(Flux.just(new DefaultTypedTuple<>("user-a", 300.0), new DefaultTypedTuple<>("user-b", 120.0)));
+
+        // When & Then
+        StepVerifier.create(usageRollupService.getTopUsers(from, to, 2, RollupGranularity.DAY))
+            .expectNext(List.of(new UserUsage("user-a", 300), new UserUsage("user-b", 120)))
+            .verifyComplete();
+
+        verify(zSetOperations, never()).unionAndStore(anyString(), anyList(), anyString());
+    }
+
+    @Test
+    void testGetTopUsers_UnionsCoarseBucketsWithHourlyEdges() {
+        // Given: 전날 22:00 ~ 다음날 01:30 -> 시간 2개 + 일 1개 + 시간 2개
+        ZonedDateTime day = ZonedDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.DAYS).minusDays(10);
+        Instant from = day.minusHours(2).toInstant();
+        Instant to = day.plusDays(1).plusMinutes(90).toInstant();
+        ArgumentCaptor<String> unionKey = ArgumentCaptor.forClass(String.class);
+
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.unionAndStore(anyString(), anyList(), unionKey.capture())).thenReturn(Mono.just(3L));
+        when(redisTemplate.expire(anyString(), any(Duration.class))).thenReturn(Mono.just(true));
+        when(zSetOperations.reverseRangeWithScores(anyString(), eq(Range.closed(0L, 9L))))
+            .thenReturn(Flux.just(new DefaultTypedTuple<>("user-a", 500.0)));
+        when(redisTemplate.delete(anyString())).thenReturn(Mono.just(1L));
+
+        // When
+        StepVerifier.create(usageRollupService.getTopUsers(from, to, 10, null))
+            .expectNext(List.of(new UserUsage("user-a", 500)))
+            .verifyComplete();
+
+        // Then: 합산 대상 키와 임시 키 정리 확인
+        verify(zSetOperations).unionAndStore(
+            hourKey(day.minusHours(2)),
+            List.of(hourKey(day.minusHours(1)),
+                "usage:top:day:" + RollupGranularity.DAY.bucketId(day),
+                hourKey(day.plusDays(1)),
+                hourKey(day.plusDays(1).plusHours(1))),
+            unionKey.getValue());
+        verify(redisTemplate).expire(unionKey.getValue(), Duration.ofMinutes(1));
+        verify(zSetOperations).reverseRangeWithScores(unionKey.getValue(), Range.closed(0L, 9L));
+        verify(redisTemplate).delete(unionKey.getValue());
+    }
+
+    @Test
+    void testGetUsageHistory_SumsHourlyBuckets() {
+        // Given
+        Instant from = Instant.parse("2024-01-01T10:15:00Z");
+        Instant to = Instant.parse("2024-01-01T12:45:00Z");
+        List<String> keys = List.of(
+            "usage:rollup:hour:test-user:2024010110",
+            "usage:rollup:hour:test-user:2024010111",
+            "usage:rollup:hour:test-user:2024010112");
+
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(keys)).thenReturn(Mono.just(Arrays.asList("100", null, "250")));
+
+        // When & Then
+        StepVerifier.create(usageRollupService.getUsageHistory("test-user", from, to, RollupGranularity.HOUR))
+            .assertNext(history -> {
+                assertEquals(350, history.getTotalTokens());
+                assertEquals(3, history.getBuckets().size());
+                assertEquals(0, history.getBuckets().get(1).getTokens());
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    void testGetUsageHistory_TooManyBuckets() {
+        // Given
+        Instant from = Instant.parse("2024-01-01T00:00:00Z");
+        Instant to = Instant.parse("2024-03-01T00:00:00Z");
+
+        // When & Then
+        StepVerifier.create(usageRollupService.getUsageHistory("test-user", from, to, RollupGranularity.MINUTE))
+            .expectError(InvalidUsageQueryException.class)
+            .verify();
+    }
+
+    @Test
+    void testBucketStart_Month() {
+        Instant instant = Instant.parse("2024-02-17T08:30:00Z");
+
+        assertEquals("202402", RollupGranularity.MONTH.bucketId(RollupGranularity.MONTH.bucketStart(instant)));
+        assertEquals(3, RollupGranularity.MONTH.bucketCount(instant, Instant.parse("2024-04-01T00:00:00Z")));
+    }
+
+    private static String hourKey(ZonedDateTime hour) {
+        return "usage:top:hour:" + RollupGranularity.HOUR.bucketId(hour);
+    }
+}
\ No newline at end of file